@@ -0,0 +1,46 @@
+package wolf3d.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import wolf3d.infra.Resource;
+
+/**
+ * BenchmarkResources class.
+ *
+ * Loads the game resources once per benchmark fork (headless, without
+ * audio) and reads the raw game data files for the loader benchmarks.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class BenchmarkResources {
+
+    // all the maps present in the shareware version
+    public static final int FLOORS_COUNT = 10;
+
+    private static boolean initialized;
+
+    public static synchronized void initialize() {
+        if (!initialized) {
+            System.setProperty("java.awt.headless", "true");
+            Resource.initialize();
+            initialized = true;
+        }
+    }
+
+    // reads the whole file whose name is in the resource property
+    public static ByteBuffer readFile(String resourceProperty)
+                                                    throws IOException {
+
+        String fileName = Resource.getProperty(resourceProperty);
+        byte[] data = Files.readAllBytes(
+                                Paths.get(Resource.USER_DIR + fileName));
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+}
@@ -0,0 +1,74 @@
+package wolf3d.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wolf3d.infra.Enemies;
+import wolf3d.infra.GameMap;
+import wolf3d.infra.SimulationClock;
+import wolf3d.infra.TimerWheel;
+import wolf3d.infra.Wolf3DGame;
+import static wolf3d.infra.Wolf3DGame.Difficulty.VERY_HARD;
+
+/**
+ * EnemiesBenchmark class.
+ *
+ * One simulation tick of the enemies on the shareware map with the most
+ * enemies (VERY_HARD difficulty, so all of them are present): the
+ * simulation clock tick, Enemies.fixedUpdateEnemies() and the timer wheel
+ * advance, in the same order of the stage fixed update, so the timers
+ * scheduled by the enemies (reactions, attacks) expire and their
+ * listeners are measured too. The map is reloaded (and the clock reset)
+ * before each iteration, so every iteration starts from the same enemy
+ * states.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnemiesBenchmark {
+
+    private int floor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkResources.initialize();
+        Wolf3DGame.setDifficulty(VERY_HARD);
+        int maxEnemies = -1;
+        for (int f = 1; f <= BenchmarkResources.FLOORS_COUNT; f++) {
+            GameMap.loadByFloorNumber(f);
+            if (Enemies.getEnemies().size() > maxEnemies) {
+                maxEnemies = Enemies.getEnemies().size();
+                floor = f;
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reloadMap() {
+        Wolf3DGame.reset();
+        SimulationClock.reset();
+        GameMap.loadByFloorNumber(floor);
+    }
+
+    @Benchmark
+    public void fixedUpdateEnemies() {
+        SimulationClock.tick();
+        Enemies.fixedUpdateEnemies();
+        TimerWheel.advance();
+    }
+
+}
@@ -0,0 +1,152 @@
+package wolf3d.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import wolf3d.asset.loader.AUDIOTLoader;
+import wolf3d.asset.loader.MAPLoader;
+import wolf3d.asset.loader.VGAGRAPHLoader;
+import static wolf3d.infra.Settings.PC_SPEAKER_SOUND_PCM_FREQ;
+import wolf3d.infra.Resource;
+
+/**
+ * LoaderBenchmark class.
+ *
+ * Decompression of all the chunks of each compressed game data file:
+ * Carmack + RLEW (GAMEMAPS), Huffman (VGAGRAPH) and the conversion of the 
+ * PC Speaker sounds to PCM (AUDIOT).
+ * 
+ * The files are read and the chunk offsets are extracted once, so only
+ * the decompression is measured.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoaderBenchmark {
+
+    // --- GAMEMAPS ---
+
+    private ByteBuffer gameMapData;
+    private final List<Integer> planeOffsets = new ArrayList<>();
+
+    // --- VGAGRAPH ---
+
+    private final List<ByteBuffer> vgaGraphChunks = new ArrayList<>();
+
+    // --- AUDIOT ---
+
+    private final List<byte[]> pcSpeakerSounds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // also loads the huffman dictionary (VGADICT)
+        BenchmarkResources.initialize();
+        extractPlaneOffsets();
+        extractVgaGraphChunks();
+        extractPCSpeakerSounds();
+    }
+
+    // see MAPLoader.load()
+    private void extractPlaneOffsets() throws IOException {
+        ByteBuffer mapHeadData = BenchmarkResources.readFile("MAP_HEAD_RES");
+        mapHeadData.position(2); // magic
+        gameMapData = BenchmarkResources.readFile("GAME_MAPS_RES");
+        for (int i = 0; i < 100; i++) {
+            int mapOffset = mapHeadData.getInt();
+            if (mapOffset <= 0) {
+                continue;
+            }
+            // layers 0 and 1
+            planeOffsets.add(gameMapData.getInt(mapOffset));
+            planeOffsets.add(gameMapData.getInt(mapOffset + 4));
+        }
+    }
+
+    // see VGAGRAPHLoader.load()
+    private void extractVgaGraphChunks() throws IOException {
+        ByteBuffer vgaHeadData = BenchmarkResources.readFile("VGA_HEAD_RES");
+        ByteBuffer vgaGraphData 
+                        = BenchmarkResources.readFile("VGA_GRAPH_RES");
+
+        int[] offsets = new int[vgaHeadData.limit() / 3];
+        for (int i = 0; i < offsets.length; i++) {
+            int o0 = vgaHeadData.get() & 0xff;
+            int o1 = vgaHeadData.get() & 0xff;
+            int o2 = vgaHeadData.get() & 0xff;
+            offsets[i] = o0 + (o1 << 8) + (o2 << 16);
+        }
+        for (int i = 0; i < offsets.length - 1; i++) {
+            int length = offsets[i + 1] - offsets[i]; 
+            if (length >= 4) {
+                vgaGraphChunks.add(vgaGraphData.slice(offsets[i], length));
+            }
+        }
+    }
+
+    // see AUDIOTLoader.load()
+    private void extractPCSpeakerSounds() throws IOException {
+        ByteBuffer headData = BenchmarkResources.readFile("AUDIO_HEAD_RES");
+        ByteBuffer audioTData = BenchmarkResources.readFile("AUDIO_T_RES");
+        int start = Resource.getIntProperty("PC_SPEAKER_SOUND_START_INDEX");
+        int end = Resource.getIntProperty("PC_SPEAKER_SOUND_END_INDEX");
+        for (int i = start; i <= end; i++) {
+            audioTData.position(headData.getInt(4 * i));
+            int length = audioTData.getInt();
+            audioTData.getShort(); // priority
+            byte[] soundData = new byte[length];
+            audioTData.get(soundData);
+            pcSpeakerSounds.add(soundData);
+        }
+    }
+
+    @Benchmark
+    public void decompressMaps(Blackhole blackhole) {
+        for (int planeOffset : planeOffsets) {
+            ByteBuffer carmackDecompressed 
+                    = MAPLoader.decompressCarmack(gameMapData, planeOffset);
+
+            carmackDecompressed.position(0);
+            blackhole.consume(
+                    MAPLoader.decompressRLEW(carmackDecompressed, 0));
+        }
+    }
+
+    @Benchmark
+    public void decompressVgaGraph(Blackhole blackhole) {
+        for (ByteBuffer chunk : vgaGraphChunks) {
+            // the chunk position is advanced by the decompression
+            ByteBuffer compressed = chunk.duplicate();
+            compressed.order(ByteOrder.LITTLE_ENDIAN);
+            blackhole.consume(VGAGRAPHLoader.decompressHuffman(compressed));
+        }
+    }
+
+    @Benchmark
+    public void convertPCSpeakerSounds(Blackhole blackhole) {
+        for (byte[] soundData : pcSpeakerSounds) {
+            blackhole.consume(AUDIOTLoader.convertPCSpeakerSoundToPCM(
+                                    soundData, PC_SPEAKER_SOUND_PCM_FREQ));
+        }
+    }
+
+}
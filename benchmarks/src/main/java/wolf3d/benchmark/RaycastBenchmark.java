@@ -0,0 +1,85 @@
+package wolf3d.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import wolf3d.infra.GameMap;
+import wolf3d.infra.GameMap.RaycastResult;
+import static wolf3d.infra.GameMap.MAP_COLS;
+import static wolf3d.infra.GameMap.MAP_ROWS;
+import wolf3d.infra.Tiles.Tile;
+import static wolf3d.infra.Tiles.TileType.FLOOR;
+
+/**
+ * RaycastBenchmark class.
+ *
+ * GameMap.performRaycastDDA() with rays cast from random free floor cells
+ * in random directions, for every map of the shareware version. The rays
+ * are generated from a fixed seed, so all runs cast the same rays.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaycastBenchmark {
+
+    private static final int RAYS = 4096;
+    private static final long SEED = 1992;
+
+    @Param({ "1", "2", "3", "4", "5", "6", "7", "8", "9", "10" })
+    private int floor;
+
+    private final double[] rayX = new double[RAYS];
+    private final double[] rayY = new double[RAYS];
+    private final double[] rayAngle = new double[RAYS];
+    private final RaycastResult result = new RaycastResult();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkResources.initialize();
+        GameMap.loadByFloorNumber(floor);
+
+        Random random = new Random(SEED);
+        int rays = 0;
+        while (rays < RAYS) {
+            int col = random.nextInt(MAP_COLS);
+            int row = random.nextInt(MAP_ROWS);
+            Tile tile = GameMap.getTile(col, row);
+            if (tile == null || tile.getType() != FLOOR 
+                                        || tile.isBlockMovement()) {
+                continue;
+            }
+            rayX[rays] = col + random.nextDouble();
+            rayY[rays] = row + random.nextDouble();
+            rayAngle[rays] = 2 * Math.PI * random.nextDouble();
+            rays++;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void castRays(Blackhole blackhole) {
+        for (int i = 0; i < RAYS; i++) {
+            GameMap.performRaycastDDA(rayX[i], rayY[i], rayAngle[i], result);
+            blackhole.consume(result.getDistance());
+        }
+    }
+
+}
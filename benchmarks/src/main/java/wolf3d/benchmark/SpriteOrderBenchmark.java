@@ -0,0 +1,159 @@
+package wolf3d.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import wolf3d.infra.GameMap;
+import static wolf3d.infra.GameMap.MAP_COLS;
+import static wolf3d.infra.GameMap.MAP_ROWS;
+import wolf3d.infra.Objs.Obj;
+import wolf3d.infra.SpriteOrder;
+
+/**
+ * SpriteOrderBenchmark class.
+ *
+ * Back to front ordering of the sprites of one frame on the shareware map
+ * with the most drawable objs (decorations and collectables), all of them
+ * considered visible, so hundreds of sprites are ordered every frame.
+ *
+ * Each invocation is one frame: the player walks a little along a circle
+ * around the center of the objs, so the distances change a little between
+ * frames like in the game. Compares the frame coherent SpriteOrder with
+ * the previous approach (Collections.sort() with a Comparator of the
+ * boxed entries every frame).
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteOrderBenchmark {
+
+    // frames of one lap around the center of the objs
+    private static final int LAP_FRAMES = 3600;
+
+    private static class Entry {
+
+        private Obj obj;
+        private double distance;
+
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Entry> sortedEntries = new ArrayList<>();
+    private final SpriteOrder<Entry> spriteOrder = new SpriteOrder<>();
+
+    private double centerX;
+    private double centerY;
+    private double radius;
+    private int frame;
+
+    private final Comparator<Entry> comparator = (Entry o1, Entry o2) -> {
+        double obj1Dist = o1.distance;
+        if (o1.obj.isDrawFirst()) obj1Dist += 1000;
+        double obj2Dist = o2.distance;
+        if (o2.obj.isDrawFirst()) obj2Dist += 1000;
+        return (int) Math.signum(obj2Dist - obj1Dist);
+    };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkResources.initialize();
+        int maxObjs = -1;
+        int floor = 1;
+        for (int f = 1; f <= BenchmarkResources.FLOORS_COUNT; f++) {
+            GameMap.loadByFloorNumber(f);
+            int objsCount = countDrawableObjs();
+            if (objsCount > maxObjs) {
+                maxObjs = objsCount;
+                floor = f;
+            }
+        }
+        GameMap.loadByFloorNumber(floor);
+
+        // map order, like the objs found tile by tile during the raycasting
+        for (int row = 0; row < MAP_ROWS; row++) {
+            for (int col = 0; col < MAP_COLS; col++) {
+                Obj obj = GameMap.getObj(col, row);
+                if (obj != null && obj.isDrawable()) {
+                    Entry entry = new Entry();
+                    entry.obj = obj;
+                    entries.add(entry);
+                    centerX += col + 0.5;
+                    centerY += row + 0.5;
+                }
+            }
+        }
+        centerX /= entries.size();
+        centerY /= entries.size();
+        radius = 8;
+        System.out.println("\nfloor: " + floor
+                                    + ", sprites: " + entries.size());
+    }
+
+    private static int countDrawableObjs() {
+        int count = 0;
+        for (int row = 0; row < MAP_ROWS; row++) {
+            for (int col = 0; col < MAP_COLS; col++) {
+                Obj obj = GameMap.getObj(col, row);
+                if (obj != null && obj.isDrawable()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // distances from the player location of the next frame
+    private void nextFrame() {
+        double angle = 2 * Math.PI * (frame++ % LAP_FRAMES) / LAP_FRAMES;
+        double playerX = centerX + radius * Math.cos(angle);
+        double playerY = centerY + radius * Math.sin(angle);
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            double dx = entry.obj.getCol() + 0.5 - playerX;
+            double dy = entry.obj.getRow() + 0.5 - playerY;
+            entry.distance = Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    @Benchmark
+    public void sortEveryFrame(Blackhole blackhole) {
+        nextFrame();
+        sortedEntries.clear();
+        sortedEntries.addAll(entries);
+        Collections.sort(sortedEntries, comparator);
+        blackhole.consume(sortedEntries.get(0));
+    }
+
+    @Benchmark
+    public void frameCoherentOrder(Blackhole blackhole) {
+        nextFrame();
+        spriteOrder.clear();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            spriteOrder.add(entry.obj, entry
+                            , entry.obj.isDrawFirst(), entry.distance);
+        }
+        spriteOrder.sort();
+        blackhole.consume(spriteOrder.get(0));
+    }
+
+}
@@ -0,0 +1,76 @@
+package wolf3d.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import wolf3d.infra.FrameBuffer;
+import wolf3d.infra.FrameSnapshot;
+import wolf3d.infra.Player;
+import wolf3d.main.HeadlessBenchmark;
+import wolf3d.scene.Stage;
+
+/**
+ * StageFrameBenchmark class.
+ *
+ * One full 3D view frame of the Stage (raycasting, walls, floor, ceiling
+ * and sprites) rendered into the offscreen frame buffer, with the camera
+ * at the player start location turning around a little each frame.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageFrameBenchmark {
+
+    // number of frames of one complete turn
+    private static final int TURN_FRAMES = 256;
+
+    @Param({ "1", "2" })
+    private int floor;
+
+    // frame buffer width (height = width * 5 / 8, as 320x200)
+    @Param({ "320", "640", "1280" })
+    private int width;
+
+    private Stage stage;
+    private double startX;
+    private double startY;
+    private double startAngle;
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkResources.initialize();
+        FrameBuffer.create(width, width * 5 / 8);
+        stage = HeadlessBenchmark.enterStage(floor);
+        startX = Player.getPlayerX();
+        startY = Player.getPlayerY();
+        startAngle = Player.getPlayerAngle();
+    }
+
+    @Benchmark
+    public long renderFrame() {
+        frame = (frame + 1) % TURN_FRAMES;
+        Player.reset(startX, startY
+                    , startAngle + 2 * Math.PI * frame / TURN_FRAMES);
+
+        FrameSnapshot.capture();
+        stage.draw3DView(FrameSnapshot.acquire());
+        return stage.getPixelWrites();
+    }
+
+}
@@ -0,0 +1,167 @@
+package wolf3d.benchmark;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import wolf3d.infra.Objs.Obj;
+import static wolf3d.infra.Objs.ObjType.DECORATION;
+import wolf3d.infra.SpriteOrder;
+
+/**
+ * SyntheticSpriteOrderBenchmark class.
+ *
+ * Same comparison of SpriteOrderBenchmark (frame coherent SpriteOrder
+ * versus a full sort of the sprites every frame), but with synthetic
+ * sprite sets, so it doesn't need the game data: the sprites are placed
+ * at random (seeded) locations of a 64x64 map, a quarter of them drawn
+ * first, and the player walks a little along a circle each frame. Only
+ * the sprites closer than VIEW_DISTANCE are ordered, so the visible set
+ * changes a little between frames like in the game.
+ *
+ * Before measuring, the setup checks over two laps that the SpriteOrder
+ * depths are the same of Arrays.sort() in every frame, and fails the
+ * trial otherwise.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyntheticSpriteOrderBenchmark {
+
+    // frames of one lap around the center of the map
+    private static final int LAP_FRAMES = 3600;
+
+    @Param({ "64", "256", "1024" })
+    private int sprites;
+
+    private static class Entry {
+
+        private Obj obj;
+        private double x;
+        private double y;
+        private double distance;
+        private double depth;
+
+    }
+
+    // the sprites farther than this are not visible, so some sprites 
+    // enter and leave the visible set every frame
+    private static final double VIEW_DISTANCE = 28;
+
+    private static final Comparator<Entry> BACK_TO_FRONT 
+            = (Entry o1, Entry o2) -> Double.compare(o2.depth, o1.depth);
+
+    private Entry[] entries;
+    private Entry[] visibleEntries;
+    private int visibleCount;
+    private Entry[] sortedEntries;
+    private final SpriteOrder<Entry> spriteOrder = new SpriteOrder<>();
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(sprites);
+        entries = new Entry[sprites];
+        visibleEntries = new Entry[sprites];
+        sortedEntries = new Entry[sprites];
+        for (int i = 0; i < sprites; i++) {
+            Entry entry = new Entry();
+            entry.x = 1 + 62 * random.nextDouble();
+            entry.y = 1 + 62 * random.nextDouble();
+            entry.obj = new Obj(i, (int) entry.x, (int) entry.y
+                                                    , DECORATION, true);
+
+            entry.obj.setDrawFirst(random.nextInt(4) == 0);
+            entries[i] = entry;
+        }
+        checkEquivalence();
+        frame = 0;
+    }
+
+    // visible sprites (in map order) and their depth from the player 
+    // location of the next frame
+    private void nextFrame() {
+        double angle = 2 * Math.PI * (frame++ % LAP_FRAMES) / LAP_FRAMES;
+        double playerX = 32 + 8 * Math.cos(angle);
+        double playerY = 32 + 8 * Math.sin(angle);
+        visibleCount = 0;
+        for (Entry entry : entries) {
+            double dx = entry.x - playerX;
+            double dy = entry.y - playerY;
+            entry.distance = Math.sqrt(dx * dx + dy * dy);
+            entry.depth = entry.obj.isDrawFirst() 
+                ? entry.distance + SpriteOrder.DRAW_FIRST_DEPTH 
+                                                    : entry.distance;
+
+            if (entry.distance < VIEW_DISTANCE) {
+                visibleEntries[visibleCount++] = entry;
+            }
+        }
+    }
+
+    private void fullSort() {
+        System.arraycopy(visibleEntries, 0, sortedEntries, 0, visibleCount);
+        Arrays.sort(sortedEntries, 0, visibleCount, BACK_TO_FRONT);
+    }
+
+    private void frameCoherentSort() {
+        spriteOrder.clear();
+        for (int i = 0; i < visibleCount; i++) {
+            Entry entry = visibleEntries[i];
+            spriteOrder.add(entry.obj, entry
+                            , entry.obj.isDrawFirst(), entry.distance);
+        }
+        spriteOrder.sort();
+    }
+
+    private void checkEquivalence() {
+        for (int f = 0; f < 2 * LAP_FRAMES; f++) {
+            nextFrame();
+            fullSort();
+            frameCoherentSort();
+            if (spriteOrder.size() != visibleCount) {
+                throw new IllegalStateException("frame " + f
+                                    + ": SpriteOrder lost some sprites");
+            }
+            for (int i = 0; i < visibleCount; i++) {
+                if (spriteOrder.get(i).depth != sortedEntries[i].depth) {
+                    throw new IllegalStateException("frame " + f
+                        + ": SpriteOrder differs from Arrays.sort() at " + i);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void sortEveryFrame(Blackhole blackhole) {
+        nextFrame();
+        fullSort();
+        blackhole.consume(sortedEntries[0]);
+    }
+
+    @Benchmark
+    public void frameCoherentOrder(Blackhole blackhole) {
+        nextFrame();
+        frameCoherentSort();
+        blackhole.consume(spriteOrder.get(0));
+    }
+
+}
@@ -139,7 +139,7 @@ public class AUDIOTLoader {
     private static final int PC_VOLUME = 15;
     private static final int PC_RATE = 140;
 
-    private static byte[] convertPCSpeakerSoundToPCM(byte[] src, long hertz) {
+    public static byte[] convertPCSpeakerSoundToPCM(byte[] src, long hertz) {
         List<Byte> dstBytes = new ArrayList<>();
         int sign = -1;
         long tone = 0;
@@ -181,6 +181,15 @@ public class AUDIOTLoader {
         return ADLIB_SOUNDS.get(soundIndex);
     }
     
+    // approximated heap size in bytes of the decoded data
+    public static long getDecodedSize() {
+        long size = 0;
+        for (byte[] pcSpeakerSound : PC_SPEAKER_SOUNDS.values()) {
+            size += pcSpeakerSound.length;
+        }
+        return size;
+    }
+
     public static ByteBuffer getMusic(int musicIndex) {
         return MUSICS.get(musicIndex);
     }
@@ -104,7 +104,7 @@ public class MAPLoader {
     }
 
     // https://moddingwiki.shikadi.net/wiki/Carmack_compression
-    private static ByteBuffer decompressCarmack(ByteBuffer bb, int start) {
+    public static ByteBuffer decompressCarmack(ByteBuffer bb, int start) {
         final byte nearTag = (byte) 0xa7;
         final byte farTag = (byte) 0xa8;
         bb.position(start);
@@ -139,7 +139,7 @@ public class MAPLoader {
     }
     
     // https://moddingwiki.shikadi.net/wiki/Id_Software_RLEW_compression
-    private static IntBuffer decompressRLEW(ByteBuffer bb, int start) {
+    public static IntBuffer decompressRLEW(ByteBuffer bb, int start) {
         bb.position(start);
         int[] decompressedData = new int[(bb.getShort() & 0xffff) / 2];
         int decompressedDataIndex = 0;
@@ -164,6 +164,17 @@ public class MAPLoader {
         return MAPS.get(mapId);
     }
 
+    // approximated heap size in bytes of the decoded maps
+    public static long getDecodedSize() {
+        long size = 0;
+        for (int[][] map : MAPS.values()) {
+            for (int[] layer : map) {
+                size += 4L * layer.length;
+            }
+        }
+        return size;
+    }
+
     public static String getMapName(int mapId) {
         return MAP_NAMES.get(mapId);
     }
@@ -12,6 +12,8 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.HashMap;
 import java.util.Map;
+import wolf3d.infra.FrameBuffer;
+import wolf3d.infra.Palette;
 import static wolf3d.infra.Palette.INDEX_COLOR_MODEL;
 import wolf3d.infra.Util;
 
@@ -54,9 +56,11 @@ public class VGAGRAPHLoader {
         private int[] fontLocation;
         private int[] fontWidth;
         private final BufferedImage[] charImages = new BufferedImage[256];
+        private final int colorIndex;
         
         public VGAGRAPHFont(byte[] fontData, Color color) {
             this.fontData = fontData;
+            colorIndex = Palette.getNearestColorIndex(color);
             extractFontInformation();
             generateCharImages(color);
         }
@@ -110,12 +114,28 @@ public class VGAGRAPHLoader {
             }
         }
         
+        // draws into the indexed frame buffer pixels 
+        // (CANVAS_WIDTH x CANVAS_HEIGHT coordinates)
+        public void drawStringIndexed(String text, int x, int y) {
+            int dx = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int c = text.charAt(i);
+                BufferedImage charImage = charImages[c];
+                if (charImage != null) {
+                    FrameBuffer.drawIndexedMask(
+                                charImage, x + dx, y, colorIndex);
+                }
+                dx += fontWidth[c];
+            }
+        }
+        
     }
     
     private static final byte[] huffmanNodes = new byte[256 * 4];
     private static Dimension[] pictable;
 
-    private static final Map<Integer, BufferedImage> PICS = new HashMap<>();
+    // array instead of a map, so getPic() doesn't box the index
+    private static BufferedImage[] pics = new BufferedImage[0];
     private static final Map<String, VGAGRAPHFont> FONTS = new HashMap<>();
     
     public static void load(String path, String vgaHeadRes
@@ -156,6 +176,7 @@ public class VGAGRAPHLoader {
             vgaGraphData.order(ByteOrder.LITTLE_ENDIAN);
             
             // extract the chunks
+            pics = new BufferedImage[offsets.length];
             for (int i = 0; i < offsets.length - 1; i++) {
                 int length = offsets[i + 1] - offsets[i]; 
                 ByteBuffer compressed = vgaGraphData.slice(offsets[i], length);
@@ -210,7 +231,7 @@ public class VGAGRAPHLoader {
                         BufferedImage fixedImage = fixVgaModeYPic(
                                     i, decompressedData, picWidth, picHeight);
 
-                        PICS.put(i, fixedImage);
+                        pics[i] = fixedImage;
                     }
                 }
             }
@@ -239,7 +260,8 @@ public class VGAGRAPHLoader {
     }
 
     // ref.: https://moddingwiki.shikadi.net/wiki/Huffman_Compression
-    private static byte[] decompressHuffman(ByteBuffer compressed) {
+    // note: uses the huffman dictionary of the last loaded VGADICT file.
+    public static byte[] decompressHuffman(ByteBuffer compressed) {
         int decompressedLength = (int) (compressed.getInt() & 0xffffffffl);
         if (decompressedLength <= 0) return null;
         byte[] data = new byte[decompressedLength];
@@ -270,35 +292,41 @@ public class VGAGRAPHLoader {
     public static BufferedImage fixVgaModeYPic(int index,
                         byte[] picData, int picWidth, int picHeight) {
         
-        BufferedImage bi = new BufferedImage(picWidth, picHeight
+        // kept indexed (1 byte per pixel), converted to RGB when drawn
+        BufferedImage fixedImage = new BufferedImage(picWidth, picHeight
                     , BufferedImage.TYPE_BYTE_INDEXED, INDEX_COLOR_MODEL);
 
-        DataBufferByte dataBuffer 
-                    = (DataBufferByte) bi.getRaster().getDataBuffer();
-
-        System.arraycopy(
-                    picData, 0, dataBuffer.getData(), 0, picWidth * picHeight);
-
-        BufferedImage fixedImage = new BufferedImage(
-                    picWidth, picHeight, BufferedImage.TYPE_INT_RGB);
-
+        byte[] fixedData = ((DataBufferByte) 
+                fixedImage.getRaster().getDataBuffer()).getData();
+        
         int w4 = picWidth / 4; 
         int h4 = picHeight / 4; 
         for (int y = 0; y < picHeight; y++) {
             for (int x = 0; x < picWidth; x++) {
                 int xs = 4 * (x % w4) + (y / h4);
                 int ys = 4 * (y % h4) + (x / w4);
-                int c = bi.getRGB(x, y);
-                fixedImage.setRGB(xs, ys, c);
+                fixedData[ys * picWidth + xs] = picData[y * picWidth + x];
             }
         }
         return fixedImage;
     }
 
     public static BufferedImage getPic(int picIndex) {
-        return PICS.get(picIndex);
+        if (picIndex < 0 || picIndex >= pics.length) {
+            return null;
+        }
+        return pics[picIndex];
     }
     
+    // approximated heap size in bytes of the decoded PIC's
+    public static long getDecodedSize() {
+        long size = 0;
+        for (BufferedImage pic : pics) {
+            size += pic != null ? Util.getImageDataSize(pic) : 0;
+        }
+        return size;
+    }
+
     public static VGAGRAPHFont getFont(String fontId) {
         return FONTS.get(fontId);
     }
@@ -1,6 +1,5 @@
 package wolf3d.asset.loader;
 
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.io.FileInputStream;
@@ -8,13 +7,15 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import static wolf3d.infra.Palette.INDEX_COLOR_MODEL;
-import static wolf3d.infra.Palette.PALETTE_BLUE;
-import static wolf3d.infra.Palette.PALETTE_GREEN;
-import static wolf3d.infra.Palette.PALETTE_RED;
+import static wolf3d.infra.Palette.SPRITE_INDEX_COLOR_MODEL;
+import static wolf3d.infra.Palette.TRANSPARENT_COLOR_INDEX;
+import wolf3d.infra.Util;
 
 /**
  * VSWAPLoader class.
@@ -41,11 +42,74 @@ import static wolf3d.infra.Palette.PALETTE_RED;
  */
 public class VSWAPLoader {
 
-    private static final Map<Integer, BufferedImage> 
-                                    WALL_TEXTURES = new HashMap<>();
+    // wall textures and sprites are kept in arrays, so the lookups done
+    // by the renderer for each ray and obj don't box the indices
+    private static BufferedImage[] wallTextures = new BufferedImage[0];
 
-    private static final Map<Integer, BufferedImage> 
-                                    SPRITES = new HashMap<>();
+    // wall texture palette indices stored column by column, 
+    // used by the software renderer
+    private static final Map<BufferedImage, byte[]> 
+                            WALL_TEXTURES_TEXELS = new IdentityHashMap<>();
+
+    private static BufferedImage[] sprites = new BufferedImage[0];
+
+    private static final Map<BufferedImage, SpriteSpans> 
+                            SPRITES_SPANS = new IdentityHashMap<>();
+    
+    // opaque spans of each column of a sprite, as stored in the VSWAP 
+    // posts, so the software renderer skips the transparent texels
+    public static class SpriteSpans {
+        
+        private final int firstCol;
+        private final int lastCol;
+        
+        // spans of the column c = spans[columnSpans[c - firstCol]] 
+        //                    ~ spans[columnSpans[c - firstCol + 1] - 1]
+        private final int[] columnSpans;
+        
+        // start row, end row (exclusive) and pixels offset of each span
+        private final int[] spans;
+        
+        // palette indices of all the spans, the texel of the row r of a
+        // span is pixels[pixels offset + r - start row]
+        private final byte[] pixels;
+
+        public SpriteSpans(int firstCol, int lastCol
+                    , int[] columnSpans, int[] spans, byte[] pixels) {
+            
+            this.firstCol = firstCol;
+            this.lastCol = lastCol;
+            this.columnSpans = columnSpans;
+            this.spans = spans;
+            this.pixels = pixels;
+        }
+
+        public int getFirstCol() {
+            return firstCol;
+        }
+
+        public int getLastCol() {
+            return lastCol;
+        }
+
+        public int[] getColumnSpans() {
+            return columnSpans;
+        }
+
+        public int[] getSpans() {
+            return spans;
+        }
+
+        public byte[] getPixels() {
+            return pixels;
+        }
+        
+        public long getSize() {
+            return 4L * columnSpans.length + 4L * spans.length 
+                                                        + pixels.length;
+        }
+        
+    }
 
     private static final Map<Integer, byte[]> 
                                     DIGITIZED_SOUNDS = new HashMap<>();
@@ -88,28 +152,29 @@ public class VSWAPLoader {
     private static void extractWallTextures(
             int indexFirstSprite, ByteBuffer vswapData, int[] addresses) {
         
+        wallTextures = new BufferedImage[indexFirstSprite];
         for (int i = 0; i < indexFirstSprite; i++) {
             vswapData.position(addresses[i]);
-            BufferedImage wallTextureTmp = new BufferedImage(64, 64
-                    , BufferedImage.TYPE_BYTE_INDEXED, INDEX_COLOR_MODEL);
             
-            DataBufferByte dataBuffer = (DataBufferByte)
-                    wallTextureTmp.getRaster().getDataBuffer();
+            // the chunk is already stored column by column
+            byte[] texels = new byte[64 * 64];
+            vswapData.get(texels);
             
-            vswapData.get(dataBuffer.getData());
-            
-            // convert to INT_ARGB, flip and rotate the image correctly
+            // image (x = column, y = row) used by the Graphics2D renderer
             BufferedImage wallTexture = new BufferedImage(64, 64
-                    , BufferedImage.TYPE_INT_ARGB);
+                    , BufferedImage.TYPE_BYTE_INDEXED, INDEX_COLOR_MODEL);
+            
+            byte[] imageData = ((DataBufferByte) 
+                    wallTexture.getRaster().getDataBuffer()).getData();
             
-            Graphics2D g = wallTexture.createGraphics();
-            g.translate(0, 64);
-            g.rotate(Math.toRadians(-90));
-            g.translate(64, 0);
-            g.scale(-1, 1);
-            g.drawImage(wallTextureTmp, 0, 0, null);
+            for (int x = 0; x < 64; x++) {
+                for (int y = 0; y < 64; y++) {
+                    imageData[y * 64 + x] = texels[x * 64 + y];
+                }
+            }
             
-            WALL_TEXTURES.put(i, wallTexture);
+            wallTextures[i] = wallTexture;
+            WALL_TEXTURES_TEXELS.put(wallTexture, texels);
         }
     }
 
@@ -119,6 +184,7 @@ public class VSWAPLoader {
                 int indexFirstSprite, int indexLastSprite
                     , int[] addresses, int[] lengths, ByteBuffer vswapData) {
         
+        sprites = new BufferedImage[indexLastSprite - indexFirstSprite + 1];
         for (int si = indexFirstSprite; si <= indexLastSprite; si++) {
             int address = addresses[si];
             int length = lengths[si];
@@ -130,18 +196,28 @@ public class VSWAPLoader {
             for (int i = 0; i < postOffsets.length; i++) {
                 postOffsets[i] = vswapData.getShort() & 0xffff;
             }
-            int[] pixelPool 
-                    = new int[postOffsets[0] - postOffsets.length * 2 - 4];
+            byte[] pixelPool 
+                    = new byte[postOffsets[0] - postOffsets.length * 2 - 4];
             
-            for (int i = 0; i < pixelPool.length; i++) {
-                pixelPool[i] = vswapData.get() & 0xff;
-            }
+            vswapData.get(pixelPool);
             int[] posts = new int[(length - postOffsets[0]) / 2];
             for (int i = 0; i < posts.length; i++) {
                 posts[i] = vswapData.getShort()& 0xffff;
             }
+            
+            // image (x = column, y = row) used by the Graphics2D renderer
             BufferedImage sprite = new BufferedImage(64, 64
-                    , BufferedImage.TYPE_INT_ARGB);
+                , BufferedImage.TYPE_BYTE_INDEXED, SPRITE_INDEX_COLOR_MODEL);
+            
+            byte[] imageData = ((DataBufferByte) 
+                    sprite.getRaster().getDataBuffer()).getData();
+            
+            Arrays.fill(imageData, (byte) TRANSPARENT_COLOR_INDEX);
+            
+            // spans of each column, kept for the software renderer
+            int[] columnSpans = new int[postOffsets.length + 1];
+            int[] spans = new int[posts.length]; // 3 values per post
+            int spansSize = 0;
             
             int colorIndex = 0;
             int postIndex = 0;
@@ -149,21 +225,26 @@ public class VSWAPLoader {
             while (col <= lastCol) {
                 int startRow = posts[postIndex + 2] / 2;
                 int endRow = posts[postIndex + 0] / 2;
+                spans[spansSize++] = startRow;
+                spans[spansSize++] = endRow;
+                spans[spansSize++] = colorIndex;
                 for (int row = startRow; row < endRow; row++) {
-                    int r = PALETTE_RED[pixelPool[colorIndex]] & 0xff;
-                    int g = PALETTE_GREEN[pixelPool[colorIndex]] & 0xff;
-                    int b = PALETTE_BLUE[pixelPool[colorIndex]] & 0xff;
-                    int color = 0xff000000 + (r << 16) + (g << 8) + b;
-                    sprite.setRGB(col, row, color);
+                    imageData[row * 64 + col] = pixelPool[colorIndex];
                     colorIndex++;
                 }
                 postIndex += 3;
                 while (postIndex < posts.length && posts[postIndex] == 0) {
                     col++;
                     postIndex++;
+                    if (col <= lastCol + 1) {
+                        columnSpans[col - firstCol] = spansSize;
+                    }
                 }
             }
-            SPRITES.put(si - indexFirstSprite, sprite);
+            
+            sprites[si - indexFirstSprite] = sprite;
+            SPRITES_SPANS.put(sprite, new SpriteSpans(firstCol, lastCol
+                , columnSpans, Arrays.copyOf(spans, spansSize), pixelPool));
         }
     }
 
@@ -202,15 +283,51 @@ public class VSWAPLoader {
     }
     
     public static BufferedImage getWallTexture(int wallTextureIndex) {
-        return WALL_TEXTURES.get(wallTextureIndex);
+        if (wallTextureIndex < 0 || wallTextureIndex >= wallTextures.length) {
+            return null;
+        }
+        return wallTextures[wallTextureIndex];
+    }
+
+    public static byte[] getWallTextureTexels(BufferedImage wallTexture) {
+        return WALL_TEXTURES_TEXELS.get(wallTexture);
     }
 
     public static BufferedImage getSprite(int spriteIndex) {
-        return SPRITES.get(spriteIndex);
+        if (spriteIndex < 0 || spriteIndex >= sprites.length) {
+            return null;
+        }
+        return sprites[spriteIndex];
+    }
+
+    public static SpriteSpans getSpriteSpans(BufferedImage sprite) {
+        return SPRITES_SPANS.get(sprite);
     }
 
     public static byte[] getDigitizedSound(int soundIndex) {
         return DIGITIZED_SOUNDS.get(soundIndex);
     }
 
+    // approximated heap size in bytes of the decoded data
+    public static long getDecodedSize() {
+        long size = 0;
+        for (BufferedImage wallTexture : wallTextures) {
+            size += wallTexture != null 
+                        ? Util.getImageDataSize(wallTexture) : 0;
+        }
+        for (byte[] texels : WALL_TEXTURES_TEXELS.values()) {
+            size += texels.length;
+        }
+        for (BufferedImage sprite : sprites) {
+            size += sprite != null ? Util.getImageDataSize(sprite) : 0;
+        }
+        for (SpriteSpans spriteSpans : SPRITES_SPANS.values()) {
+            size += spriteSpans.getSize();
+        }
+        for (byte[] digitizedSound : DIGITIZED_SOUNDS.values()) {
+            size += digitizedSound.length;
+        }
+        return size;
+    }
+
 }
@@ -1,5 +1,6 @@
 package wolf3d.audio;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioSystem;
@@ -33,6 +34,11 @@ public class PCMSoundPlayer {
     private byte[] currentSoundData;
     private int currentSoundIndex;
     
+    // sounds passed to play() and sounds that were never played 
+    // because of a sound with higher priority or a newer request
+    private final AtomicLong soundsRequested = new AtomicLong();
+    private final AtomicLong soundsDropped = new AtomicLong();
+    
     public PCMSoundPlayer(int sampleRate) {
         audioFormat = new AudioFormat(sampleRate, 8, 1, false, false);
         start();
@@ -66,13 +72,16 @@ public class PCMSoundPlayer {
         @Override
         public void run() {
             while (initialized) {
-                synchronized (this) {
+                synchronized (PCMSoundPlayer.this) {
                     if (newSoundData != null) {
                         if (checkPriority(newSoundData, currentSoundData)) {
                             currentSoundIndex = 0;
                             currentSoundData = newSoundData;
                             sourceDataLine.flush();
                         }
+                        else {
+                            soundsDropped.incrementAndGet();
+                        }
                         newSoundData = null;
                     }
                 }
@@ -118,7 +127,19 @@ public class PCMSoundPlayer {
     }
     
     public synchronized void play(byte[] soundData) {
+        soundsRequested.incrementAndGet();
+        if (newSoundData != null) {
+            soundsDropped.incrementAndGet();
+        }
         newSoundData = soundData;
     }
 
+    public long getSoundsRequested() {
+        return soundsRequested.get();
+    }
+
+    public long getSoundsDropped() {
+        return soundsDropped.get();
+    }
+
 }
@@ -1,8 +1,12 @@
 package wolf3d.infra;
 
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 import wolf3d.audio.IMFMusicPlayer;
 import wolf3d.audio.PCMSoundPlayer;
+import wolf3d.infra.EngineEvents.MusicEvent;
+import wolf3d.infra.EngineEvents.SoundEvent;
 import static wolf3d.infra.Settings.*;
 
 /**
@@ -20,6 +24,12 @@ public class Audio {
     private static String currentMusicId;
     private static IMFMusicPlayer imfMusicPlayer;
     
+    // while not initialized (for example, when running headless) 
+    // all the methods below do nothing
+    public static boolean isInitialized() {
+        return imfMusicPlayer != null;
+    }
+    
     public static void initialize() {
         pcSpeakerSoundPlayer = new PCMSoundPlayer(PC_SPEAKER_SOUND_PCM_FREQ);
         digitizedSoundPlayer = new PCMSoundPlayer(DIGITIZED_SOUND_PCM_FREQ);
@@ -27,8 +37,17 @@ public class Audio {
     }
     
     public static void playMusic(String musicId) {
+        if (!isInitialized()) return;
         ByteBuffer musicImfData = Resource.getMusic(musicId);
+        MusicEvent event = new MusicEvent();
+        event.begin();
         imfMusicPlayer.play(musicImfData);
+        if (event.shouldCommit()) {
+            event.musicId = musicId;
+            event.previousMusicId = currentMusicId;
+            event.size = musicImfData.limit();
+            event.commit();
+        }
         currentMusicId = musicId;
     }
 
@@ -44,37 +63,98 @@ public class Audio {
     }
 
     public static void stopMusic() {
+        if (!isInitialized()) return;
         imfMusicPlayer.stop();
     }
     
     // volume = 0~255
     public static void setMusicVolume(int volume) {
+        if (!isInitialized()) return;
         imfMusicPlayer.setVolume(volume);
     }
 
     // volumeScale = 0.0~1.0
     public static void setMusicScaleVolume(double volumeScale) {
+        if (!isInitialized()) return;
         imfMusicPlayer.setVolumeScale(volumeScale);
     }
     
-    public static void playSound(String soundId) {
-        boolean digitizedSoundOk = false;
+    // --- sounds statistics of both PCM sound players ---
+    
+    public static long getSoundsRequested() {
+        if (!isInitialized()) return 0;
+        return pcSpeakerSoundPlayer.getSoundsRequested() 
+                        + digitizedSoundPlayer.getSoundsRequested();
+    }
+    
+    // not played because of the priority or replaced by a newer sound
+    public static long getSoundsDropped() {
+        if (!isInitialized()) return 0;
+        return pcSpeakerSoundPlayer.getSoundsDropped() 
+                        + digitizedSoundPlayer.getSoundsDropped();
+    }
+    
+    // sound data of a sound id: the digitized sound if available, 
+    // otherwise the PC speaker sound (data = null if none of them)
+    private static class Sound {
+        
+        private final byte[] data;
+        private final boolean digitized;
+
+        public Sound(byte[] data, boolean digitized) {
+            this.data = data;
+            this.digitized = digitized;
+        }
         
+    }
+    
+    // resolved on the first play of each sound id, so the property names
+    // are not built again every time the sound is played
+    private static final Map<String, Sound> SOUNDS = new HashMap<>();
+    
+    private static Sound getSound(String soundId) {
+        Sound sound = SOUNDS.get(soundId);
+        if (sound != null) {
+            return sound;
+        }
+        byte[] soundData = null;
         if (Resource.hasProperty("DIGITIZED_SOUND_" + soundId)) {
             int si = Resource.getIntProperty("DIGITIZED_SOUND_" + soundId);
-            byte[] soundData = Resource.getDigitizedSound(si);
-            if (soundData != null) {
-                digitizedSoundPlayer.play(soundData);
-                digitizedSoundOk = true;
+            soundData = Resource.getDigitizedSound(si);
+        }
+        if (soundData != null) {
+            sound = new Sound(soundData, true);
+        }
+        else if (Resource.hasProperty("EFFECT_SOUND_" + soundId)) {
+            int si = Resource.getIntProperty("EFFECT_SOUND_" + soundId);
+            sound = new Sound(Resource.getPCSpeakerSound(si), false);
+        }
+        else {
+            sound = new Sound(null, false);
+        }
+        SOUNDS.put(soundId, sound);
+        return sound;
+    }
+    
+    public static void playSound(String soundId) {
+        if (!isInitialized()) return;
+        SoundEvent event = new SoundEvent();
+        event.begin();
+        Sound sound = getSound(soundId);
+        if (sound.data != null) {
+            if (sound.digitized) {
+                digitizedSoundPlayer.play(sound.data);
+            }
+            else {
+                pcSpeakerSoundPlayer.play(sound.data);
             }
         }
         
-        if (!digitizedSoundOk 
-                && Resource.hasProperty("EFFECT_SOUND_" + soundId)) {
-            
-            int si = Resource.getIntProperty("EFFECT_SOUND_" + soundId);
-            byte[] soundData = Resource.getPCSpeakerSound(si);
-            pcSpeakerSoundPlayer.play(soundData);
+        if (event.shouldCommit()) {
+            event.soundId = soundId;
+            event.digitized = sound.digitized;
+            event.size = sound.data != null ? sound.data.length : 0;
+            event.commit();
         }
     }
 
@@ -0,0 +1,181 @@
+package wolf3d.infra;
+
+import java.util.Arrays;
+import static wolf3d.infra.GameMap.MAP_COLS;
+import static wolf3d.infra.GameMap.MAP_ROWS;
+import wolf3d.infra.Objs.EnemyObj;
+import wolf3d.infra.Objs.Obj;
+import wolf3d.infra.Tiles.DoorTile;
+import static wolf3d.infra.Tiles.DoorTile.DoorState.OPEN;
+import wolf3d.infra.Tiles.Tile;
+import static wolf3d.infra.Tiles.TileType.*;
+
+/**
+ * ChaseFlowField class.
+ *
+ * Distance (in moves) from each map cell to the player cell, shared by all
+ * the chasing enemies, so each enemy reads the direction of its next move
+ * by just comparing the distances of the neighbor cells instead of trying
+ * the directions toward the player and getting stuck behind the walls.
+ *
+ * There are two fields: one for the enemies that can open doors (all the
+ * doors are passable) and one for the others (only the open doors are
+ * passable). The fields are computed with a breadth first search (8
+ * directions, the diagonal moves can't cut the corners or pass through
+ * doors) when they are first needed after the player changed cell, a
+ * pushwall moved or, for the second field, a door opened or started to
+ * close. The other enemies are not obstacles in the fields, the chosen
+ * direction is still checked before the enemy moves.
+ *
+ * Only used by the simulation thread.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class ChaseFlowField {
+
+    private static final int CELLS = MAP_ROWS * MAP_COLS;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final CardinalDirection[] DIRECTIONS
+                                            = CardinalDirection.values();
+
+    // [cell] distance to the player cell
+    private static final int[] doorOpenerDistances = new int[CELLS];
+    private static final int[] openDoorsDistances = new int[CELLS];
+
+    private static boolean doorOpenerFieldDirty = true;
+    private static boolean openDoorsFieldDirty = true;
+    private static int playerCell = -1;
+
+    private static final int[] cellsQueue = new int[CELLS];
+
+    // called when the map is loaded or a pushwall moved
+    public static void invalidate() {
+        doorOpenerFieldDirty = true;
+        openDoorsFieldDirty = true;
+    }
+
+    public static void doorStateChanged() {
+        openDoorsFieldDirty = true;
+    }
+
+    // direction of the next move toward the player
+    // (null = the player can't be reached from the enemy cell)
+    public static CardinalDirection getNextDirection(EnemyObj enemy) {
+        int playerCol = (int) Player.getPlayerX();
+        int playerRow = (int) Player.getPlayerY();
+        int cell = playerRow * MAP_COLS + playerCol;
+        if (cell != playerCell) {
+            playerCell = cell;
+            invalidate();
+        }
+
+        boolean ableToOpenDoor = enemy.isAbleToOpenDoor();
+        int[] distances;
+        if (ableToOpenDoor) {
+            if (doorOpenerFieldDirty) {
+                update(doorOpenerDistances, true);
+                doorOpenerFieldDirty = false;
+            }
+            distances = doorOpenerDistances;
+        }
+        else {
+            if (openDoorsFieldDirty) {
+                update(openDoorsDistances, false);
+                openDoorsFieldDirty = false;
+            }
+            distances = openDoorsDistances;
+        }
+
+        int col = enemy.getCol();
+        int row = enemy.getRow();
+        int distance = distances[row * MAP_COLS + col];
+        if (distance == UNREACHABLE || distance == 0) {
+            return null;
+        }
+
+        // among the moves that get closer, prefer the one pointing
+        // toward the player
+        int playerDx = Integer.signum(playerCol - col);
+        int playerDy = Integer.signum(playerRow - row);
+        CardinalDirection nextDirection = null;
+        int nextScore = Integer.MIN_VALUE;
+        for (CardinalDirection direction : DIRECTIONS) {
+            if (!isMovePossible(col, row, direction, ableToOpenDoor)) {
+                continue;
+            }
+            int nextCell = (row + direction.dy) * MAP_COLS + col + direction.dx;
+            if (distances[nextCell] >= distance) {
+                continue;
+            }
+            int score = direction.dx * playerDx + direction.dy * playerDy;
+            if (score > nextScore) {
+                nextDirection = direction;
+                nextScore = score;
+            }
+        }
+        return nextDirection;
+    }
+
+    private static void update(int[] distances, boolean ableToOpenDoor) {
+        Arrays.fill(distances, UNREACHABLE);
+        int queueStart = 0;
+        int queueEnd = 0;
+        distances[playerCell] = 0;
+        cellsQueue[queueEnd++] = playerCell;
+        while (queueStart < queueEnd) {
+            int cell = cellsQueue[queueStart++];
+            int col = cell % MAP_COLS;
+            int row = cell / MAP_COLS;
+            int nextDistance = distances[cell] + 1;
+            for (CardinalDirection direction : DIRECTIONS) {
+                // the moves are reversible, so it doesn't matter if
+                // the search goes from the player to the enemies
+                if (!isMovePossible(col, row, direction, ableToOpenDoor)) {
+                    continue;
+                }
+                int nextCell
+                        = (row + direction.dy) * MAP_COLS + col + direction.dx;
+
+                if (distances[nextCell] == UNREACHABLE) {
+                    distances[nextCell] = nextDistance;
+                    cellsQueue[queueEnd++] = nextCell;
+                }
+            }
+        }
+    }
+
+    private static boolean isMovePossible(int col, int row
+                    , CardinalDirection direction, boolean ableToOpenDoor) {
+
+        int nextCol = col + direction.dx;
+        int nextRow = row + direction.dy;
+        if (direction.dx == 0 || direction.dy == 0) {
+            return isPassable(nextCol, nextRow, ableToOpenDoor);
+        }
+        // diagonal
+        return isFloor(col, row) && isFloor(nextCol, nextRow)
+                    && isFloor(nextCol, row) && isFloor(col, nextRow);
+    }
+
+    private static boolean isPassable(
+                            int col, int row, boolean ableToOpenDoor) {
+
+        Tile tile = GameMap.getTile(col, row);
+        if (tile != null && tile.getType() == DOOR) {
+            return ableToOpenDoor || ((DoorTile) tile).getDoorState() == OPEN;
+        }
+        return isFloor(col, row);
+    }
+
+    // floor not blocked by a static obj (the enemies are not considered)
+    private static boolean isFloor(int col, int row) {
+        Tile tile = GameMap.getTile(col, row);
+        if (tile == null || tile.getType() != FLOOR) {
+            return false;
+        }
+        Obj obj = GameMap.getObj(col, row);
+        return obj == null || !obj.isBlockMovement();
+    }
+
+}
@@ -95,6 +95,38 @@ public class Display extends JFrame {
             if (e.getKeyCode() == Settings.KEY_KEEP_ASPECT_RATIO) {
                 Settings.keepAspectRatio = !Settings.keepAspectRatio;
             }
+            // next internal render resolution
+            if (e.getKeyCode() == Settings.KEY_RENDER_RESOLUTION) {
+                Settings.renderResolutionIndex = 
+                        (Settings.renderResolutionIndex + 1) 
+                                % Settings.RENDER_RESOLUTIONS.length;
+            }
+            // software / Graphics2D wall renderer
+            if (e.getKeyCode() == Settings.KEY_SOFTWARE_WALL_RENDERER) {
+                Settings.softwareWallRenderer = !Settings.softwareWallRenderer;
+            }
+            // serial / parallel raycasting
+            if (e.getKeyCode() == Settings.KEY_PARALLEL_RAYCASTING) {
+                Settings.parallelRaycasting = !Settings.parallelRaycasting;
+            }
+            // serial / pipelined simulation and rendering
+            if (e.getKeyCode() == Settings.KEY_PIPELINED_RENDERING) {
+                Settings.pipelinedRendering = !Settings.pipelinedRendering;
+            }
+            // next frame pacing mode
+            if (e.getKeyCode() == Settings.KEY_FRAME_PACING) {
+                FramePacer.Mode[] modes = FramePacer.Mode.values();
+                Settings.framePacing = modes[
+                        (Settings.framePacing.ordinal() + 1) % modes.length];
+            }
+            // show / hide 3D view pixel writes
+            if (e.getKeyCode() == Settings.KEY_SHOW_PIXEL_WRITES) {
+                Settings.showPixelWrites = !Settings.showPixelWrites;
+            }
+            // show / hide performance overlay
+            if (e.getKeyCode() == Settings.KEY_SHOW_PERF_OVERLAY) {
+                Settings.showPerfOverlay = !Settings.showPerfOverlay;
+            }
             // full screen
             if (e.getKeyCode() == Settings.KEY_FULLSCREEN) {
                 if (gd.getFullScreenWindow() == null) {
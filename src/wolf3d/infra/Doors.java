@@ -1,26 +1,41 @@
 package wolf3d.infra;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import wolf3d.infra.Objs.EnemyObj;
 import static wolf3d.infra.Objs.EnemyObj.EnemyState.DEAD;
 import wolf3d.infra.Tiles.DoorTile;
 import static wolf3d.infra.Tiles.DoorTile.DoorState.*;
+import wolf3d.infra.TimerWheel.Timer;
+import wolf3d.infra.TimerWheel.TimerListener;
 
 /**
  * Doors class.
  * 
- * Handle all active doors.
+ * Handle all active doors. The open doors are not updated, they are
+ * closed by their close timer (see TimerWheel).
  * 
  * @author Leonardo Ono (ono.leo80@gmail.com)
  */
 public class Doors {
 
     private static final double DOOR_SPEED = 0.02;
+    private static final long DOOR_OPEN_TIME = 3000;
+
+    private static final TimerListener CLOSE_DOOR = Doors::closeDoor;
     
-    private static final Set<DoorTile> activatedDoors = new HashSet<>();
+    // list iterated by index, so the fixed update doesn't allocate iterators
+    private static final List<DoorTile> activatedDoors = new ArrayList<>();
     private static final Set<DoorTile> deactivatedDoors = new HashSet<>();
 
+    // the doors of the previous map would keep updating its rooms
+    public static void clear() {
+        activatedDoors.clear();
+        deactivatedDoors.clear();
+    }
+
     public static void activateDoor(DoorTile door) {
         if ((door.getDoorState() == CLOSING 
                 || door.getDoorState() == CLOSED) 
@@ -30,40 +45,36 @@ public class Doors {
         }
 
         door.setDoorState(OPENING);
-        activatedDoors.add(door);
+        if (!activatedDoors.contains(door)) {
+            activatedDoors.add(door);
+        }
+    }
+    
+    public static int getActivatedDoorsCount() {
+        return activatedDoors.size();
     }
     
     public static void fixedUpdateDoors() {
-        for (DoorTile door : activatedDoors) {
+        for (int i = 0; i < activatedDoors.size(); i++) {
+            DoorTile door = activatedDoors.get(i);
             switch (door.getDoorState()) {
                 case OPENING -> {
+                    LineOfSight.invalidate();
                     door.incDoorOpenRate(DOOR_SPEED);
                     if (door.getDoorOpenRate() > 1.0) {
                         door.setDoorOpenRate(1.0);
                         door.setDoorState(OPEN);
-                        door.setDoorCloseTime(Util.getTimeMs() + 3000);
+                        ChaseFlowField.doorStateChanged();
+                        // the open door is idle until the close timer expires
+                        deactivatedDoors.add(door);
+                        TimerWheel.schedule(door.getCloseTimer()
+                                            , DOOR_OPEN_TIME, CLOSE_DOOR);
                     }
                     GameMap.connectRooms(
                         door.getConnectedRoom1(), door.getConnectedRoom2());
                 }
-                case OPEN -> {
-                    boolean isDoorObstructed = door.isDoorObstructed();
-                    if (Util.getTimeMs() >= door.getDoorCloseTime()
-                            && !isDoorObstructed && !door.isBlockMovement()) {
-                        
-                        door.setDoorState(CLOSING);
-                        if (canPlayerHearDoor(door)) {
-                            Audio.playSound("CLOSEDOOR");
-                        }
-                    }
-                    EnemyObj enemyObj = door.getObstructingEnemy();
-                    if (isDoorObstructed && enemyObj != null 
-                                && enemyObj.getEnemyState() == DEAD) {
-                        
-                        deactivatedDoors.add(door);
-                    }
-                }
                 case CLOSING -> {
+                    LineOfSight.invalidate();
                     door.incDoorOpenRate(-DOOR_SPEED);
                     if (door.getDoorOpenRate() < 0.0) {
                         door.setDoorOpenRate(0.0);
@@ -82,6 +93,34 @@ public class Doors {
         }
     } 
 
+    private static void closeDoor(Timer timer) {
+        DoorTile door = (DoorTile) timer.getOwner();
+        if (door.getDoorState() != OPEN) {
+            return;
+        }
+        boolean isDoorObstructed = door.isDoorObstructed();
+        EnemyObj enemyObj = door.getObstructingEnemy();
+        if (isDoorObstructed && enemyObj != null
+                    && enemyObj.getEnemyState() == DEAD) {
+
+            // the door stays open
+            return;
+        }
+        if (isDoorObstructed || door.isBlockMovement()) {
+            // tries again in the next tick
+            TimerWheel.schedule(timer, 0, CLOSE_DOOR);
+            return;
+        }
+        door.setDoorState(CLOSING);
+        ChaseFlowField.doorStateChanged();
+        if (canPlayerHearDoor(door)) {
+            Audio.playSound("CLOSEDOOR");
+        }
+        if (!activatedDoors.contains(door)) {
+            activatedDoors.add(door);
+        }
+    }
+
     private static boolean canPlayerHearDoor(DoorTile door) {
         int playerRoomId = Player.getCurrentRoomId();
         int soundRoomId1 = door.getConnectedRoom1();
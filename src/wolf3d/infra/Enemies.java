@@ -12,6 +12,8 @@ import wolf3d.infra.Tiles.DoorTile;
 import static wolf3d.infra.Tiles.DoorTile.DoorState.*;
 import wolf3d.infra.Tiles.Tile;
 import static wolf3d.infra.Tiles.TileType.*;
+import wolf3d.infra.TimerWheel.Timer;
+import wolf3d.infra.TimerWheel.TimerListener;
 
 /**
  * Enemies class.
@@ -21,6 +23,8 @@ import static wolf3d.infra.Tiles.TileType.*;
 public class Enemies {
 
     private static final List<EnemyObj> ENEMIES = new ArrayList<>();
+
+    static final TimerListener REACT = Enemies::react;
     
     public static void clear() {
         ENEMIES.clear();
@@ -41,7 +45,8 @@ public class Enemies {
     }
     
     public static void fixedUpdateEnemies() {
-        for (EnemyObj enemy : ENEMIES) {
+        for (int i = 0; i < ENEMIES.size(); i++) {
+            EnemyObj enemy = ENEMIES.get(i);
             switch (enemy.getEnemyState()) {
                 case STAND -> updateStand(enemy);
                 case PATROL -> updatePatrol(enemy);
@@ -50,7 +55,6 @@ public class Enemies {
                 case CHASE -> updateChase(enemy);
                 case ATTACK_REACT -> updateAttackReact(enemy);
                 case ATTACK -> updateAttack(enemy);
-                case HIT -> updateHit(enemy);
                 case DYING -> updateDying(enemy);
                 // case DEAD -> updateDead(enemy);
             }
@@ -66,7 +70,7 @@ public class Enemies {
     private static boolean checkMustStartChasingPlayer(EnemyObj enemy) {
         // proximity
         double dist = enemy.calculateDistanceFromPlayer();
-        if (dist <= PROXIMITY_DISTANCE && Math.random() < 0.1 
+        if (dist <= PROXIMITY_DISTANCE && Util.random() < 0.1 
                                         && enemy.canSeePlayer(false) ) {
             
             enemy.chaseReact();
@@ -162,7 +166,7 @@ public class Enemies {
         
         // check if need to start attacking
         if (enemy.getEnemyRestoreState() == CHASE 
-                    && Util.getTimeMs() >= enemy.getAttackTime()) {
+                    && TimerWheel.getTimeMs() >= enemy.getAttackTime()) {
             
             if ((enemy.canSeePlayer(true) || distanceFromPlayer <= 1.5)
                     && distanceFromPlayer <= enemy.getMinAttackDistance()) {
@@ -205,20 +209,15 @@ public class Enemies {
         // boss has only 4 frames for walking, no 360 view.
         if (enemy.isBoss()) {
             enemy.setAnimationFrame(
-                    (int) (System.nanoTime() * 0.000000005) % 4);
+                    (int) (Util.getTimeNano() * 0.000000005) % 4);
         }
         else {
             enemy.setAnimationFrame(
-                        8 * ((int) (System.nanoTime() * 0.000000005) % 4));
+                        8 * ((int) (Util.getTimeNano() * 0.000000005) % 4));
         }
     }
         
     private static void updateChaseReact(EnemyObj enemy) {
-        if (Util.getTimeMs() >= enemy.getReactTime()) {
-            Audio.playSound(enemy.getRandomHaltSoundId());
-            enemy.setEnemyRestoreState(CHASE);
-            enemy.setEnemyState(WALK);
-        }
         enemy.setAnimationFrame(0);
     }
 
@@ -234,14 +233,20 @@ public class Enemies {
     }
 
     private static CardinalDirection getNextChaseDirection(EnemyObj enemy) {
+        CardinalDirection flowDir = ChaseFlowField.getNextDirection(enemy);
+        if (isNextDirectionFree(enemy, flowDir)) {
+            return flowDir;
+        }
+        
+        // player not reachable or the way is blocked by another enemy
         int dx = (int) Player.getPlayerX() - (int) enemy.getEnemyX();
         int dy = (int) Player.getPlayerY() - (int) enemy.getEnemyY();
         
         dx = (int) Math.signum(dx);
         dy = (int) Math.signum(dy);
         
-        if (dx == 0) dx = Math.random() < 0.5 ? 1 : -1;
-        if (dy == 0) dy = Math.random() < 0.5 ? 1 : -1;
+        if (dx == 0) dx = Util.random() < 0.5 ? 1 : -1;
+        if (dy == 0) dy = Util.random() < 0.5 ? 1 : -1;
         
         CardinalDirection nextDir = CardinalDirection.getDirection(dx, dy);
         if (isNextDirectionFree(enemy, nextDir)) {
@@ -249,7 +254,7 @@ public class Enemies {
         }
         
         CardinalDirection nextDirDx = CardinalDirection.getDirection(dx, 0);
-        if (Math.random() < 0.5 && isNextDirectionFree(enemy, nextDirDx)) {
+        if (Util.random() < 0.5 && isNextDirectionFree(enemy, nextDirDx)) {
             return nextDirDx;
         }
         
@@ -263,7 +268,7 @@ public class Enemies {
         CardinalDirection nextDirOpposDx 
                 = CardinalDirection.getDirection(nextDirOppos.dx, 0);
         
-        if (Math.random() < 0.05 
+        if (Util.random() < 0.05 
                 && isNextDirectionFree(enemy, nextDirOpposDx)) {
             
             return nextDirOpposDx;
@@ -272,7 +277,7 @@ public class Enemies {
         CardinalDirection nextDirOpposDy 
                 = CardinalDirection.getDirection(0, nextDirOppos.dy);
         
-        if (Math.random() < 0.05 
+        if (Util.random() < 0.05 
                 && isNextDirectionFree(enemy, nextDirOpposDy)) {
             
             return nextDirOpposDy;
@@ -318,13 +323,6 @@ public class Enemies {
         double nextFrame = enemy.getAnimationFrame() + 0.1;
         if (nextFrame >= 2) nextFrame = 2;
         enemy.setAnimationFrame(nextFrame);
-        if (Util.getTimeMs() >= enemy.getReactTime()) {
-            Audio.playSound(enemy.getRandomAttackSoundId());
-            enemy.setEnemyState(ATTACK);
-            enemy.setAnimationFrame(2.99);
-            enemy.setUse360View(false);
-            Player.tryToHit(enemy);
-        }
     }
 
     private static void updateAttack(EnemyObj enemy) {
@@ -337,12 +335,12 @@ public class Enemies {
     
     private static void planNextAttack(EnemyObj enemy) {
         double halfDist = enemy.calculateDistanceFromPlayer() / 2;
-        enemy.setAttackTime(Util.getTimeMs() + (int) (300 * halfDist) 
+        enemy.setAttackTime(TimerWheel.getTimeMs() + (int) (300 * halfDist) 
                                     + Util.random(1 +(int) (300 * halfDist)));
 
         if (enemy.isBoss()) {
             enemy.setAttackTime(
-                    (long) (Util.getTimeMs() + 250 + 100 * halfDist));
+                    (long) (TimerWheel.getTimeMs() + 250 + 100 * halfDist));
         }
         
         enemy.setEnemyRestoreState(CHASE);
@@ -351,12 +349,28 @@ public class Enemies {
         enemy.setAnimationFrame(0);
     }
 
-    public static void updateHit(EnemyObj enemy) {
-        if (Util.getTimeMs() >= enemy.getReactTime()) {
-            enemy.setEnemyState(WALK);
-            enemy.setEnemyRestoreState(CHASE);
-            enemy.setUse360View(true);
-            enemy.setAnimationFrame(0);
+    // end of the CHASE_REACT, ATTACK_REACT and HIT states
+    private static void react(Timer timer) {
+        EnemyObj enemy = (EnemyObj) timer.getOwner();
+        switch (enemy.getEnemyState()) {
+            case CHASE_REACT -> {
+                Audio.playSound(enemy.getRandomHaltSoundId());
+                enemy.setEnemyRestoreState(CHASE);
+                enemy.setEnemyState(WALK);
+            }
+            case ATTACK_REACT -> {
+                Audio.playSound(enemy.getRandomAttackSoundId());
+                enemy.setEnemyState(ATTACK);
+                enemy.setAnimationFrame(2.99);
+                enemy.setUse360View(false);
+                Player.tryToHit(enemy);
+            }
+            case HIT -> {
+                enemy.setEnemyState(WALK);
+                enemy.setEnemyRestoreState(CHASE);
+                enemy.setUse360View(true);
+                enemy.setAnimationFrame(0);
+            }
         }
     }
 
@@ -405,7 +419,7 @@ public class Enemies {
             bossMissChange = 0.80;
         }
         
-        if (enemy.isBoss() && Math.random() < bossMissChange) {
+        if (enemy.isBoss() && Util.random() < bossMissChange) {
             return;
         }
         
@@ -423,7 +437,7 @@ public class Enemies {
                 enemy.kill();
             }
             else {
-                enemy.setReactTime(Util.getTimeMs() + 200);
+                enemy.startReactTimer(200);
                 enemy.setEnemyState(HIT);
                 enemy.setUse360View(false);
                 enemy.setAnimationFrame(0);
@@ -0,0 +1,152 @@
+package wolf3d.infra;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * EngineEvents class.
+ *
+ * Java Flight Recorder events of the engine subsystems, so the hitches of
+ * a recording can be correlated with what the game was doing.
+ *
+ * Example: java -XX:StartFlightRecording:filename=wolf3d.jfr ...
+ *
+ * The events cost almost nothing while no recording is running. The
+ * frequent ones (render phases and sounds) don't record the stack trace.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class EngineEvents {
+
+    private static final String CATEGORY = "Wolf3D";
+
+    @Name("wolf3d.SceneSwitch")
+    @Label("Scene Switch")
+    @Description("Exit of the current scene and enter of the next one")
+    @Category({ CATEGORY, "Scene" })
+    public static class SceneSwitchEvent extends Event {
+
+        @Label("From Scene")
+        public String fromScene;
+
+        @Label("To Scene")
+        public String toScene;
+
+    }
+
+    @Name("wolf3d.Fade")
+    @Label("Fade")
+    @Description("Fade out, wait or fade in phase of a scene switch")
+    @Category({ CATEGORY, "Scene" })
+    @StackTrace(false)
+    public static class FadeEvent extends Event {
+
+        @Label("Phase")
+        public String phase;
+
+        @Label("Scene")
+        public String scene;
+
+    }
+
+    @Name("wolf3d.LevelLoad")
+    @Label("Level Load")
+    @Category({ CATEGORY, "Level" })
+    public static class LevelLoadEvent extends Event {
+
+        @Label("Floor")
+        public int floor;
+
+        @Label("Enemies")
+        public int enemies;
+
+        @Label("Doors")
+        public int doors;
+
+        @Label("Secret Doors")
+        public int secretDoors;
+
+    }
+
+    @Name("wolf3d.ResourceLoad")
+    @Label("Resource Load")
+    @Description("One loader stage of Resource.initialize()")
+    @Category({ CATEGORY, "Resource" })
+    public static class ResourceLoadEvent extends Event {
+
+        @Label("Stage")
+        public String stage;
+
+    }
+
+    @Name("wolf3d.RenderPhase")
+    @Label("Render Phase")
+    @Description("One 3D view pass of the Stage frame")
+    @Category({ CATEGORY, "Render" })
+    @StackTrace(false)
+    public static class RenderPhaseEvent extends Event {
+
+        @Label("Phase")
+        public String phase;
+
+        @Label("Floor")
+        public int floor;
+
+        @Label("Rays Cast")
+        public int raysCast;
+
+        @Label("DDA Steps")
+        public long ddaSteps;
+
+        @Label("Sprites Drawn")
+        public int spritesDrawn;
+
+        @Label("Sprites Culled")
+        public int spritesCulled;
+
+        @Label("Pixel Writes")
+        public long pixelWrites;
+
+    }
+
+    @Name("wolf3d.Sound")
+    @Label("Sound")
+    @Category({ CATEGORY, "Audio" })
+    @StackTrace(false)
+    public static class SoundEvent extends Event {
+
+        @Label("Sound Id")
+        public String soundId;
+
+        @Label("Digitized")
+        public boolean digitized;
+
+        @Label("Sound Size")
+        @DataAmount
+        public int size;
+
+    }
+
+    @Name("wolf3d.Music")
+    @Label("Music Switch")
+    @Category({ CATEGORY, "Audio" })
+    public static class MusicEvent extends Event {
+
+        @Label("Music Id")
+        public String musicId;
+
+        @Label("Previous Music Id")
+        public String previousMusicId;
+
+        @Label("IMF Data Size")
+        @DataAmount
+        public int size;
+
+    }
+
+}
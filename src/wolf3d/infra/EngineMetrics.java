@@ -0,0 +1,271 @@
+package wolf3d.infra;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import wolf3d.infra.Objs.EnemyObj;
+import wolf3d.infra.Objs.EnemyObj.EnemyState;
+
+/**
+ * EngineMetrics class.
+ *
+ * Live engine counters and a few runtime settings, registered as the 
+ * platform MBean wolf3d:type=EngineMetrics, so a running instance can 
+ * be inspected and tuned with JConsole or VisualVM.
+ *
+ * The counters are updated by the render and simulation threads and
+ * read by the JMX threads, so all of them are atomic.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class EngineMetrics implements EngineMetricsMXBean {
+
+    public static final String OBJECT_NAME = "wolf3d:type=EngineMetrics";
+
+    private static final EnemyState[] ENEMY_STATES = EnemyState.values();
+
+    private static final AtomicLong framesRendered = new AtomicLong();
+    private static final AtomicLong fixedUpdates = new AtomicLong();
+    private static final AtomicLong fixedUpdatesDropped = new AtomicLong();
+    private static final AtomicLong raysCast = new AtomicLong();
+    private static final AtomicLong ddaSteps = new AtomicLong();
+    private static final AtomicLong spritesConsidered = new AtomicLong();
+    private static final AtomicLong spritesDrawn = new AtomicLong();
+    private static final AtomicLong spritesCulled = new AtomicLong();
+    private static final AtomicLong lineOfSightQueries = new AtomicLong();
+    private static final AtomicLong lineOfSightRaysCast = new AtomicLong();
+    private static final AtomicIntegerArray enemiesPerState 
+                            = new AtomicIntegerArray(ENEMY_STATES.length);
+
+    // only used by the simulation thread
+    private static final int[] enemiesPerStateCount 
+                                        = new int[ENEMY_STATES.length];
+
+    private static long decodedAssetsHeapSize = -1;
+
+    private static boolean registered;
+
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new EngineMetrics(), new ObjectName(OBJECT_NAME));
+
+            registered = true;
+        } catch (Exception ex) {
+            Logger.getLogger(EngineMetrics.class.getName())
+                                        .log(Level.WARNING, null, ex);
+        }
+    }
+
+    // --- updated by the engine ---
+
+    public static void frameRendered() {
+        framesRendered.incrementAndGet();
+    }
+
+    public static void fixedUpdateExecuted() {
+        fixedUpdates.incrementAndGet();
+    }
+
+    public static void fixedUpdatesDropped(long count) {
+        fixedUpdatesDropped.addAndGet(count);
+    }
+
+    // culled = enemies skipped because they are not around visible cells
+    public static void view3DRendered(int rays, long steps
+                            , int considered, int drawn, int culled) {
+        raysCast.addAndGet(rays);
+        ddaSteps.addAndGet(steps);
+        spritesConsidered.addAndGet(considered);
+        spritesDrawn.addAndGet(drawn);
+        spritesCulled.addAndGet(culled);
+    }
+
+    // rayCast = false if the result was cached or rejected without a ray
+    public static void lineOfSightQueried(boolean rayCast) {
+        lineOfSightQueries.incrementAndGet();
+        if (rayCast) {
+            lineOfSightRaysCast.incrementAndGet();
+        }
+    }
+
+    // called by the simulation after each tick
+    public static void updateEnemiesPerState() {
+        Arrays.fill(enemiesPerStateCount, 0);
+        List<EnemyObj> enemies = Enemies.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            enemiesPerStateCount[enemies.get(i).getEnemyState().ordinal()]++;
+        }
+        for (int i = 0; i < enemiesPerStateCount.length; i++) {
+            enemiesPerState.set(i, enemiesPerStateCount[i]);
+        }
+    }
+
+    // --- counters ---
+
+    @Override
+    public long getFramesRendered() {
+        return framesRendered.get();
+    }
+
+    @Override
+    public long getFixedUpdates() {
+        return fixedUpdates.get();
+    }
+
+    @Override
+    public long getFixedUpdatesDropped() {
+        return fixedUpdatesDropped.get();
+    }
+
+    @Override
+    public long getRaysCast() {
+        return raysCast.get();
+    }
+
+    @Override
+    public double getAverageDdaStepsPerRay() {
+        long rays = raysCast.get();
+        return rays > 0 ? ddaSteps.get() / (double) rays : 0;
+    }
+
+    @Override
+    public long getSpritesConsidered() {
+        return spritesConsidered.get();
+    }
+
+    @Override
+    public long getSpritesDrawn() {
+        return spritesDrawn.get();
+    }
+
+    @Override
+    public long getSpritesCulled() {
+        return spritesCulled.get();
+    }
+
+    @Override
+    public long getLineOfSightQueries() {
+        return lineOfSightQueries.get();
+    }
+
+    @Override
+    public long getLineOfSightRaysCast() {
+        return lineOfSightRaysCast.get();
+    }
+
+    @Override
+    public int getActiveDoors() {
+        return Doors.getActivatedDoorsCount();
+    }
+
+    @Override
+    public int getActiveSecretDoors() {
+        return SecretDoors.getActivatedSecretDoorsCount();
+    }
+
+    @Override
+    public Map<String, Integer> getEnemiesPerState() {
+        Map<String, Integer> enemies = new LinkedHashMap<>();
+        for (EnemyState state : ENEMY_STATES) {
+            enemies.put(state.name(), enemiesPerState.get(state.ordinal()));
+        }
+        return enemies;
+    }
+
+    @Override
+    public long getSoundsRequested() {
+        return Audio.getSoundsRequested();
+    }
+
+    @Override
+    public long getSoundsDropped() {
+        return Audio.getSoundsDropped();
+    }
+
+    // the assets don't change after loaded, so it's computed only once
+    @Override
+    public synchronized long getDecodedAssetsHeapSize() {
+        if (decodedAssetsHeapSize < 0) {
+            decodedAssetsHeapSize = Resource.getDecodedAssetsSize();
+        }
+        return decodedAssetsHeapSize;
+    }
+
+    // --- tunables ---
+
+    @Override
+    public int getFpsCap() {
+        return Settings.fpsCap;
+    }
+
+    @Override
+    public void setFpsCap(int fpsCap) {
+        if (fpsCap < 1) {
+            throw new IllegalArgumentException("fps cap must be positive");
+        }
+        Settings.fpsCap = fpsCap;
+    }
+
+    @Override
+    public String getFramePacing() {
+        return Settings.framePacing.name();
+    }
+
+    // UNCAPPED, FIXED_FPS or DISPLAY_REFRESH
+    @Override
+    public void setFramePacing(String framePacing) {
+        Settings.framePacing = FramePacer.Mode.valueOf(framePacing);
+    }
+
+    @Override
+    public boolean isPipelinedRendering() {
+        return Settings.pipelinedRendering;
+    }
+
+    @Override
+    public void setPipelinedRendering(boolean pipelinedRendering) {
+        Settings.pipelinedRendering = pipelinedRendering;
+    }
+
+    @Override
+    public boolean isParallelRaycasting() {
+        return Settings.parallelRaycasting;
+    }
+
+    @Override
+    public void setParallelRaycasting(boolean parallelRaycasting) {
+        Settings.parallelRaycasting = parallelRaycasting;
+    }
+
+    @Override
+    public boolean isSoftwareWallRenderer() {
+        return Settings.softwareWallRenderer;
+    }
+
+    @Override
+    public void setSoftwareWallRenderer(boolean softwareWallRenderer) {
+        Settings.softwareWallRenderer = softwareWallRenderer;
+    }
+
+    @Override
+    public boolean isShowPerfOverlay() {
+        return Settings.showPerfOverlay;
+    }
+
+    @Override
+    public void setShowPerfOverlay(boolean showPerfOverlay) {
+        Settings.showPerfOverlay = showPerfOverlay;
+    }
+
+}
@@ -0,0 +1,74 @@
+package wolf3d.infra;
+
+import java.util.Map;
+
+/**
+ * EngineMetricsMXBean interface.
+ *
+ * Management interface of the EngineMetrics (wolf3d:type=EngineMetrics).
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public interface EngineMetricsMXBean {
+
+    // --- counters ---
+
+    long getFramesRendered();
+
+    long getFixedUpdates();
+
+    long getFixedUpdatesDropped();
+
+    long getRaysCast();
+
+    double getAverageDdaStepsPerRay();
+
+    long getSpritesConsidered();
+
+    long getSpritesDrawn();
+
+    long getSpritesCulled();
+
+    long getLineOfSightQueries();
+
+    long getLineOfSightRaysCast();
+
+    int getActiveDoors();
+
+    int getActiveSecretDoors();
+
+    Map<String, Integer> getEnemiesPerState();
+
+    long getSoundsRequested();
+
+    long getSoundsDropped();
+
+    long getDecodedAssetsHeapSize();
+
+    // --- tunables ---
+
+    int getFpsCap();
+
+    void setFpsCap(int fpsCap);
+
+    String getFramePacing();
+
+    void setFramePacing(String framePacing);
+
+    boolean isPipelinedRendering();
+
+    void setPipelinedRendering(boolean pipelinedRendering);
+
+    boolean isParallelRaycasting();
+
+    void setParallelRaycasting(boolean parallelRaycasting);
+
+    boolean isSoftwareWallRenderer();
+
+    void setSoftwareWallRenderer(boolean softwareWallRenderer);
+
+    boolean isShowPerfOverlay();
+
+    void setShowPerfOverlay(boolean showPerfOverlay);
+
+}
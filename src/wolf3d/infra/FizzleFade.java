@@ -1,88 +1,239 @@
 package wolf3d.infra;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import static wolf3d.infra.Settings.*;
 
 /**
  * FizzleFade class.
- * 
+ *
  * Effect when player dies.
- * 
+ *
  * Implemented using Linear Feedback Shift Register technique.
- * 
+ *
+ * The canvas pixels visited by the LFSR are precomputed once in the visit
+ * order, so the simulation only advances the number of fizzled pixels and
+ * the renderer writes the fizzled pixels directly into the frame buffer
+ * pixels (each canvas pixel scaled to the internal render resolution),
+ * without any intermediate translucent image. With the software renderer,
+ * the fizzle is drawn into the indexed pixels, so the palette effects
+ * (the fade between the scenes) are applied to it too.
+ *
+ * Once the fizzle covers the whole screen, it is just a fill of the frame
+ * buffer, and the scene doesn't draw what is under it (see isCovering()).
+ *
  * @author Leonardo Ono (ono.leo80@gmail.com)
  */
 public class FizzleFade {
 
-    private static final BufferedImage BACKGROUND;
-    private static final Graphics2D BACKGROUND_G2D;
-    
-    private static int pixelCount;
-    private static int fadeDirection;
-    private static Color fadeColor;
-    
+    private static final int LFSR_STEPS_PER_TICK = 1600;
+
+    // pixels counted until the fade in is finished. The LFSR visits all the
+    // canvas pixels (except 0, 0) before that, then it keeps revisiting them.
+    private static final int FADE_PIXELS = 72000;
+
+    // canvas pixels (y * CANVAS_WIDTH + x) in the order visited by the LFSR
+    private static final int[] PIXELS_ORDER;
+
+    // pixels counted at the end of each tick
+    private static final int[] TICK_PIXELS;
+
     static {
-        BACKGROUND = new BufferedImage(320, 200, BufferedImage.TYPE_INT_ARGB);
-        BACKGROUND_G2D = BACKGROUND.createGraphics();
-        BACKGROUND_G2D.setBackground(new Color(0, 0, 0, 0));
+        int[] pixelsOrder = new int[CANVAS_WIDTH * CANVAS_HEIGHT];
+        int[] tickPixels = new int[FADE_PIXELS / 100];
+        int visitedPixels = 0;
+        int countedPixels = 0;
+        int ticks = 0;
+        int lfsr = 1;
+        boolean allVisited = false;
+        while (countedPixels < FADE_PIXELS) {
+            for (int i = 0; i < LFSR_STEPS_PER_TICK; i++) {
+                int bn = (lfsr & 1) ^ ((lfsr & 8) >> 3);
+                lfsr = (lfsr >> 1) + (bn << 16);
+                int x = lfsr & 0x1ff;
+                int y = (lfsr >> 9) & 0xff;
+                if (x < CANVAS_WIDTH && y < CANVAS_HEIGHT) {
+                    if (!allVisited) {
+                        pixelsOrder[visitedPixels++] = y * CANVAS_WIDTH + x;
+                    }
+                    countedPixels++;
+                }
+                // back to the initial state, next pixels were visited
+                allVisited |= lfsr == 1;
+            }
+            tickPixels[ticks++] = countedPixels;
+        }
+        PIXELS_ORDER = Arrays.copyOf(pixelsOrder, visitedPixels);
+        TICK_PIXELS = Arrays.copyOf(tickPixels, ticks);
     }
 
-    private static int lfsr = 1;
+    // --- simulation ---
+
+    private static int ticks;
+    private static int pixelCount;
+    private static int fadeDirection;
+    private static Color fadeColor;
 
-    private static int nextLFSR() {
-        int bn = (lfsr & 1) ^ ((lfsr & 8) >> 3);
-        lfsr = (lfsr >> 1) + (bn << 16);
-        return lfsr;
-    }
-    
     public static boolean isFinished() {
-        return fadeDirection == 0 
-                    || (fadeDirection > 0 && pixelCount >= 72000)
+        return fadeDirection == 0
+                    || (fadeDirection > 0 && pixelCount >= FADE_PIXELS)
                         || (fadeDirection < 0 && pixelCount <= 0);
     }
-    
+
     public static void fixedUpdate() {
         if (isFinished()) {
             return;
         }
-        
-        for (int i = 0; i < 1600; i++) {
-            int rnd = nextLFSR();
-            int x = rnd & 0x1ff;
-            int y = (rnd >> 9) & 0xff;
-            if (x < 320 && y < 200) {
-                int color = fadeDirection > 0 ? fadeColor.getRGB() : 0x00000000;
-                BACKGROUND.setRGB(x, y, color);
-                pixelCount += fadeDirection;
-            }
-        }        
+        int countedPixels = TICK_PIXELS[ticks++];
+        pixelCount = fadeDirection > 0
+                            ? countedPixels : FADE_PIXELS - countedPixels;
     }
 
-    public static void draw(Graphics2D g) {
-        if (fadeDirection < 0 && pixelCount <= 0) {
-            return;
-        }
-        g.drawImage(BACKGROUND, 0, 0, null);
+    public static int getPixelCount() {
+        return pixelCount;
+    }
+
+    public static int getFadeDirection() {
+        return fadeDirection;
+    }
+
+    public static Color getFadeColor() {
+        return fadeColor;
     }
-    
+
     public static void fadeIn(Color fadeColor) {
-        lfsr = 1;
+        ticks = 0;
         fadeDirection = 1;
         pixelCount = 0;
         FizzleFade.fadeColor = fadeColor;
     }
 
     public static void fadeOut() {
-        lfsr = 1;
+        ticks = 0;
         fadeDirection = -1;
-        pixelCount = 72000;
+        pixelCount = FADE_PIXELS;
     }
-    
+
     public static void reset() {
-        BACKGROUND_G2D.clearRect(0, 0, 320, 200);
+        ticks = 0;
         pixelCount = 0;
         fadeDirection = -1;
     }
-    
+
+    // --- rendering ---
+
+    // frame buffer area of each canvas column and row (x1 = colsX[x],
+    // x2 = colsX[x + 1]), updated when the resolution changes
+    private static int[] colsX = new int[0];
+    private static int[] rowsY = new int[0];
+    private static int scaledWidth;
+    private static int scaledHeight;
+
+    private static void updateScale(int width, int height) {
+        if (width == scaledWidth && height == scaledHeight) {
+            return;
+        }
+        colsX = new int[CANVAS_WIDTH + 1];
+        for (int x = 0; x <= CANVAS_WIDTH; x++) {
+            colsX[x] = x * width / CANVAS_WIDTH;
+        }
+        rowsY = new int[CANVAS_HEIGHT + 1];
+        for (int y = 0; y <= CANVAS_HEIGHT; y++) {
+            rowsY[y] = y * height / CANVAS_HEIGHT;
+        }
+        scaledWidth = width;
+        scaledHeight = height;
+    }
+
+    // true when all the frame buffer pixels are fizzled, so what is under 
+    // the fizzle doesn't need to be drawn
+    public static boolean isCovering(FrameSnapshot snapshot) {
+        return snapshot.getFizzleFadeDirection() > 0 
+                && snapshot.getFizzleFadePixelCount() >= PIXELS_ORDER.length;
+    }
+
+    // palette index of the last fade color
+    private static int indexedColor;
+    private static int indexedColorIndex = -1;
+
+    private static int getColorIndex(int color) {
+        if (color != indexedColor || indexedColorIndex < 0) {
+            indexedColor = color;
+            indexedColorIndex = Palette.getNearestColorIndex(new Color(color));
+        }
+        return indexedColorIndex;
+    }
+
+    // draws the fizzled pixels of the snapshot being rendered
+    // indexed = true draws into the indexed frame buffer pixels, so the
+    //           palette effects (fade) are applied to the fizzle too
+    public static void draw(boolean indexed) {
+        FrameSnapshot snapshot = FrameSnapshot.getRendering();
+        int direction = snapshot.getFizzleFadeDirection();
+        int count = snapshot.getFizzleFadePixelCount();
+        int start;
+        int end;
+        if (direction > 0) {
+            start = 0;
+            end = Math.min(count, PIXELS_ORDER.length);
+        }
+        else if (direction < 0 && count > 0) {
+            start = Math.min(FADE_PIXELS - count, PIXELS_ORDER.length);
+            end = PIXELS_ORDER.length;
+        }
+        else {
+            return;
+        }
+
+        int color = snapshot.getFizzleFadeColor();
+        int[] pixels = FrameBuffer.getPixels();
+        byte[] indexedPixels = FrameBuffer.getIndexedPixels();
+        byte colorIndex = (byte) (indexed ? getColorIndex(color) : 0);
+        int width = FrameBuffer.getWidth();
+        int height = FrameBuffer.getHeight();
+
+        // the whole frame buffer (the LFSR never visits the pixel 0, 0)
+        if (isCovering(snapshot)) {
+            if (indexed) {
+                Arrays.fill(indexedPixels, 0, width * height, colorIndex);
+            }
+            else {
+                Arrays.fill(pixels, 0, width * height, color);
+            }
+            return;
+        }
+
+        // native resolution
+        if (width == CANVAS_WIDTH && height == CANVAS_HEIGHT) {
+            for (int i = start; i < end; i++) {
+                if (indexed) {
+                    indexedPixels[PIXELS_ORDER[i]] = colorIndex;
+                }
+                else {
+                    pixels[PIXELS_ORDER[i]] = color;
+                }
+            }
+            return;
+        }
+
+        updateScale(width, height);
+        for (int i = start; i < end; i++) {
+            int pixel = PIXELS_ORDER[i];
+            int x = pixel % CANVAS_WIDTH;
+            int y = pixel / CANVAS_WIDTH;
+            int x1 = colsX[x];
+            int x2 = colsX[x + 1];
+            int y2 = rowsY[y + 1];
+            for (int sy = rowsY[y]; sy < y2; sy++) {
+                int p = sy * width;
+                if (indexed) {
+                    Arrays.fill(indexedPixels, p + x1, p + x2, colorIndex);
+                }
+                else {
+                    Arrays.fill(pixels, p + x1, p + x2, color);
+                }
+            }
+        }
+    }
+
 }
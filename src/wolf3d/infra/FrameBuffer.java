@@ -0,0 +1,193 @@
+package wolf3d.infra;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import static wolf3d.infra.Settings.*;
+
+/**
+ * FrameBuffer class.
+ *
+ * Offscreen image where the scenes are drawn. The pixels are also exposed
+ * as an int[] (0xAARRGGBB) so that the software renderers can write them
+ * directly, bypassing Java2D.
+ *
+ * The frame buffer can have any resolution (internal render resolution).
+ * The scenes keep drawing their 2D content using the fixed
+ * CANVAS_WIDTH x CANVAS_HEIGHT coordinates through getGraphics(), which
+ * is scaled accordingly, while the 3D view is rendered natively using
+ * getNativeGraphics() or the pixels directly.
+ *
+ * The software renderer draws the 3D view as palette indices into the
+ * indexed pixels (1 byte per pixel), which are converted to RGB only once,
+ * by presentIndexedPixels(). The 2D content drawn over the 3D view that 
+ * must follow the palette effects (fade, flash) is drawn into the indexed 
+ * pixels too, using drawIndexedImage() and drawIndexedMask().
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class FrameBuffer {
+
+    private static BufferedImage image;
+    private static Graphics2D graphics;
+    private static Graphics2D nativeGraphics;
+    private static int[] pixels;
+    private static byte[] indexedPixels;
+    private static int width;
+    private static int height;
+    private static double scale;
+
+    public static void create(int width, int height) {
+        if (graphics != null) {
+            graphics.dispose();
+            nativeGraphics.dispose();
+        }
+        FrameBuffer.width = width;
+        FrameBuffer.height = height;
+        scale = width / (double) CANVAS_WIDTH;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        indexedPixels = new byte[width * height];
+        nativeGraphics = image.createGraphics();
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION
+                , RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+        graphics.scale(scale, height / (double) CANVAS_HEIGHT);
+    }
+
+    // recreate the frame buffer if the selected resolution has changed
+    public static boolean updateResolution() {
+        int[] resolution = RENDER_RESOLUTIONS[renderResolutionIndex];
+        if (image == null
+                || width != resolution[0] || height != resolution[1]) {
+
+            create(resolution[0], resolution[1]);
+            return true;
+        }
+        return false;
+    }
+
+    public static BufferedImage getImage() {
+        return image;
+    }
+
+    // graphics using the CANVAS_WIDTH x CANVAS_HEIGHT coordinates
+    public static Graphics2D getGraphics() {
+        return graphics;
+    }
+
+    // graphics using the frame buffer pixel coordinates
+    public static Graphics2D getNativeGraphics() {
+        return nativeGraphics;
+    }
+
+    public static int[] getPixels() {
+        return pixels;
+    }
+
+    // palette indices, same layout of the pixels
+    public static byte[] getIndexedPixels() {
+        return indexedPixels;
+    }
+
+    // converts the indexed pixels of the area (columns 0~areaWidth - 1, 
+    // rows y1~y2 - 1) to the pixels using the palette remap table
+    // (palette index -> 0xAARRGGBB, see PaletteEffects)
+    public static void presentIndexedPixels(
+                int areaWidth, int y1, int y2, int[] paletteARGB) {
+        
+        for (int y = y1; y < y2; y++) {
+            int p = y * width;
+            int pEnd = p + areaWidth;
+            while (p < pEnd) {
+                pixels[p] = paletteARGB[indexedPixels[p] & 0xff];
+                p++;
+            }
+        }
+    }
+
+    // draws the TYPE_BYTE_INDEXED image (pics and sprites) into the indexed
+    // pixels, scaled to the rectangle in CANVAS_WIDTH x CANVAS_HEIGHT 
+    // coordinates (nearest neighbor, transparent pixel skipped)
+    public static void drawIndexedImage(
+            BufferedImage indexedImage, int x, int y, int w, int h) {
+        
+        byte[] data = ((DataBufferByte) 
+                indexedImage.getRaster().getDataBuffer()).getData();
+        
+        int transparent = ((IndexColorModel) 
+                        indexedImage.getColorModel()).getTransparentPixel();
+        
+        int imageWidth = indexedImage.getWidth();
+        int imageHeight = indexedImage.getHeight();
+        int dx1 = x * width / CANVAS_WIDTH;
+        int dy1 = y * height / CANVAS_HEIGHT;
+        int dx2 = (x + w) * width / CANVAS_WIDTH;
+        int dy2 = (y + h) * height / CANVAS_HEIGHT;
+        if (dx2 <= dx1 || dy2 <= dy1) {
+            return;
+        }
+        for (int dy = Math.max(dy1, 0); dy < Math.min(dy2, height); dy++) {
+            int sy = (dy - dy1) * imageHeight / (dy2 - dy1);
+            int s = sy * imageWidth;
+            int p = dy * width;
+            for (int dx = Math.max(dx1, 0); dx < Math.min(dx2, width); dx++) {
+                int sx = (dx - dx1) * imageWidth / (dx2 - dx1);
+                int index = data[s + sx] & 0xff;
+                if (index != transparent) {
+                    indexedPixels[p + dx] = (byte) index;
+                }
+            }
+        }
+    }
+
+    // draws the opaque pixels of the TYPE_INT_ARGB image (font chars) with 
+    // the palette index into the indexed pixels, scaled like 
+    // drawIndexedImage()
+    public static void drawIndexedMask(
+                    BufferedImage argbImage, int x, int y, int colorIndex) {
+        
+        int[] data = ((DataBufferInt) 
+                        argbImage.getRaster().getDataBuffer()).getData();
+        
+        int imageWidth = argbImage.getWidth();
+        int imageHeight = argbImage.getHeight();
+        int dx1 = x * width / CANVAS_WIDTH;
+        int dy1 = y * height / CANVAS_HEIGHT;
+        int dx2 = (x + imageWidth) * width / CANVAS_WIDTH;
+        int dy2 = (y + imageHeight) * height / CANVAS_HEIGHT;
+        if (dx2 <= dx1 || dy2 <= dy1) {
+            return;
+        }
+        byte index = (byte) colorIndex;
+        for (int dy = Math.max(dy1, 0); dy < Math.min(dy2, height); dy++) {
+            int sy = (dy - dy1) * imageHeight / (dy2 - dy1);
+            int s = sy * imageWidth;
+            int p = dy * width;
+            for (int dx = Math.max(dx1, 0); dx < Math.min(dx2, width); dx++) {
+                int sx = (dx - dx1) * imageWidth / (dx2 - dx1);
+                if ((data[s + sx] >>> 24) != 0) {
+                    indexedPixels[p + dx] = index;
+                }
+            }
+        }
+    }
+
+    public static int getWidth() {
+        return width;
+    }
+
+    public static int getHeight() {
+        return height;
+    }
+
+    // frame buffer pixels per canvas pixel
+    public static double getScale() {
+        return scale;
+    }
+
+}
@@ -0,0 +1,148 @@
+package wolf3d.infra;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+
+/**
+ * FramePacer class.
+ *
+ * Waits until the deadline of the next frame, sleeping while there is
+ * enough time left and busy waiting the last part, since Thread.sleep()
+ * may oversleep by a few milliseconds.
+ *
+ * The deadlines are scheduled from the previous deadline (not from the
+ * time the wait started), so the sleep errors don't accumulate. If the
+ * frames fall behind more than one period, the schedule restarts.
+ *
+ * It also keeps the times of the last frames to report the achieved
+ * frame time average and variance.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class FramePacer {
+
+    public static enum Mode { UNCAPPED, FIXED_FPS, DISPLAY_REFRESH }
+
+    private static final int DEFAULT_REFRESH_RATE = 60;
+
+    // below this remaining time, busy wait instead of sleeping
+    private static final long SPIN_THRESHOLD = 2000000;
+
+    // number of last frames used to compute the statistics
+    private static final int FRAME_TIMES_SIZE = 120;
+
+    private static int displayRefreshRate;
+
+    private final long[] frameTimes = new long[FRAME_TIMES_SIZE];
+    private int frameTimesCount;
+    private int frameTimesIndex;
+    private long lastFrameTime;
+
+    private long period;
+    private long nextFrameTime;
+
+    // refresh rate of the default screen (60 if unknown)
+    public static int getDisplayRefreshRate() {
+        if (displayRefreshRate == 0) {
+            int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+            if (!GraphicsEnvironment.isHeadless()) {
+                refreshRate = GraphicsEnvironment
+                    .getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                                        .getDisplayMode().getRefreshRate();
+            }
+            displayRefreshRate = refreshRate > 0
+                                    ? refreshRate : DEFAULT_REFRESH_RATE;
+        }
+        return displayRefreshRate;
+    }
+
+    // frame period in nanoseconds for the mode (0 = uncapped)
+    public static long getFramePeriod(Mode mode, int fpsCap) {
+        return switch (mode) {
+            case UNCAPPED -> 0;
+            case FIXED_FPS -> 1000000000L / Math.max(1, fpsCap);
+            case DISPLAY_REFRESH -> 1000000000L / getDisplayRefreshRate();
+        };
+    }
+
+    // periodNanos: 0 = uncapped (only yields)
+    public void waitNextFrame(long periodNanos) {
+        if (periodNanos <= 0) {
+            period = 0;
+            Thread.yield();
+        }
+        else {
+            long now = System.nanoTime();
+            if (periodNanos != period || now - nextFrameTime > periodNanos) {
+                nextFrameTime = now;
+            }
+            period = periodNanos;
+            nextFrameTime += periodNanos;
+            waitUntil(nextFrameTime);
+        }
+        recordFrameTime();
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > SPIN_THRESHOLD) {
+            try {
+                Thread.sleep((remaining - SPIN_THRESHOLD) / 1000000);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void recordFrameTime() {
+        long now = System.nanoTime();
+        if (lastFrameTime != 0) {
+            frameTimes[frameTimesIndex] = now - lastFrameTime;
+            frameTimesIndex = (frameTimesIndex + 1) % FRAME_TIMES_SIZE;
+            frameTimesCount = Math.min(frameTimesCount + 1, FRAME_TIMES_SIZE);
+        }
+        lastFrameTime = now;
+    }
+
+    // --- statistics of the last frames ---
+
+    // average frame time in milliseconds
+    public double getFrameTimeAverage() {
+        if (frameTimesCount == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < frameTimesCount; i++) {
+            sum += frameTimes[i];
+        }
+        return sum * 0.000001 / frameTimesCount;
+    }
+
+    // frame time variance in milliseconds^2
+    public double getFrameTimeVariance() {
+        if (frameTimesCount == 0) {
+            return 0;
+        }
+        double average = getFrameTimeAverage();
+        double sum = 0;
+        for (int i = 0; i < frameTimesCount; i++) {
+            double diff = frameTimes[i] * 0.000001 - average;
+            sum += diff * diff;
+        }
+        return sum / frameTimesCount;
+    }
+
+    public double getFrameTimeStandardDeviation() {
+        return Math.sqrt(getFrameTimeVariance());
+    }
+
+    public double getFps() {
+        double average = getFrameTimeAverage();
+        return average > 0 ? 1000 / average : 0;
+    }
+
+}
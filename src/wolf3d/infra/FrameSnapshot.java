@@ -0,0 +1,341 @@
+package wolf3d.infra;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import wolf3d.infra.Objs.EnemyObj;
+import wolf3d.infra.Objs.Obj;
+import wolf3d.infra.Player.PlayerState;
+import wolf3d.infra.Tiles.DoorTile;
+import wolf3d.infra.Tiles.SecretDoorTile;
+import wolf3d.infra.Weapons.Weapon;
+
+/**
+ * FrameSnapshot class.
+ *
+ * State of the simulation needed to render one frame (player pose, moving
+ * sprites, door open rates, HUD values and screen effects), captured by
+ * the simulation at the end of the ticks and read by the renderer.
+ *
+ * The snapshots are triple buffered: the simulation always writes into
+ * its own buffer and publishes it, while the renderer always reads the
+ * latest published one, so a published snapshot is never modified while
+ * it is being rendered, and neither side waits for the other.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class FrameSnapshot {
+
+    private static final FrameSnapshot[] BUFFERS = {
+        new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot() };
+
+    // bit set in 'published' when it holds a buffer not read yet
+    private static final int FRESH = 4;
+
+    // written only by the thread that captures (simulation lock held)
+    private static int writeIndex = 0;
+
+    // written only by the render thread
+    private static int readIndex = 1;
+
+    private static final AtomicInteger published = new AtomicInteger(2);
+
+    // captures the current state of the simulation and publishes it
+    public static void capture() {
+        FrameSnapshot snapshot = BUFFERS[writeIndex];
+        snapshot.captureState();
+        writeIndex = published.getAndSet(writeIndex | FRESH) & ~FRESH;
+    }
+
+    // takes the latest published snapshot for rendering
+    public static FrameSnapshot acquire() {
+        if ((published.get() & FRESH) != 0) {
+            readIndex = published.getAndSet(readIndex) & ~FRESH;
+        }
+        return BUFFERS[readIndex];
+    }
+
+    // snapshot currently being rendered
+    public static FrameSnapshot getRendering() {
+        return BUFFERS[readIndex];
+    }
+
+    // --- scene ---
+
+    private Scene scene;
+    private int fadeValue;
+    private boolean fading;
+
+    // --- player ---
+
+    private PlayerState playerState;
+    private double playerX;
+    private double playerY;
+    private double playerAngle;
+    private boolean showUserMsgGoldKeyRequired;
+    private boolean showUserMsgSilverKeyRequired;
+
+    // --- moving sprites (enemies and end player) ---
+
+    private int spritesCount;
+    private Obj[] spriteObjs = new Obj[0];
+    private double[] spriteX = new double[0];
+    private double[] spriteY = new double[0];
+    private BufferedImage[] spriteImages = new BufferedImage[0];
+
+    // --- doors and secret doors, indexed by row * MAP_COLS + col ---
+
+    private final double[] openRates
+                    = new double[GameMap.MAP_ROWS * GameMap.MAP_COLS];
+    private boolean pushwallMoving;
+
+    // --- HUD and weapon ---
+
+    private int floor;
+    private int score;
+    private int lives;
+    private int lifeEnergy;
+    private int ammo;
+    private boolean playerHasGoldKey;
+    private boolean playerHasSilverKey;
+    private int faceAnimationIndex;
+    private BufferedImage weaponHudPic;
+    private BufferedImage weaponSprite;
+
+    // --- flash screen effect ---
+
+    private double flashScreenRed;
+    private double flashScreenGreen;
+    private double flashScreenBlue;
+    private double flashScreenAlpha;
+
+    // --- fizzle fade effect ---
+
+    private int fizzleFadeDirection;
+    private int fizzleFadePixelCount;
+    private int fizzleFadeColor;
+
+    private void captureState() {
+        scene = SceneManager.getCurrentState();
+        fadeValue = SceneManager.getFadeValue();
+        fading = SceneManager.isFading();
+
+        playerState = Player.getPlayerState();
+        playerX = Player.getPlayerX();
+        playerY = Player.getPlayerY();
+        playerAngle = Player.getPlayerAngle();
+        showUserMsgGoldKeyRequired = Player.isShowUserMsgGoldKeyRequired();
+        showUserMsgSilverKeyRequired
+                            = Player.isShowUserMsgSilverKeyRequired();
+
+        // the enemies that can't be visible from the player cell are 
+        // not captured (see PVS)
+        int playerCol = (int) playerX;
+        int playerRow = (int) playerY;
+        spritesCount = 0;
+        for (EnemyObj enemy : Enemies.getEnemies()) {
+            if (enemy.isDrawable() && PVS.isVisible(playerCol, playerRow
+                    , (int) enemy.getEnemyX(), (int) enemy.getEnemyY())) {
+                
+                addSprite(enemy, enemy.getEnemyX(), enemy.getEnemyY()
+                                                    , enemy.getSprite());
+            }
+        }
+
+        for (DoorTile door : GameMap.getDoorTiles()) {
+            openRates[door.getRow() * GameMap.MAP_COLS + door.getCol()]
+                                                = door.getDoorOpenRate();
+        }
+        for (SecretDoorTile secretDoor : GameMap.getSecretDoorTiles()) {
+            openRates[secretDoor.getRow() * GameMap.MAP_COLS
+                + secretDoor.getCol()] = secretDoor.getSecretDoorOpenRate();
+        }
+        pushwallMoving = SecretDoors.getActivatedSecretDoorsCount() > 0;
+
+        floor = Wolf3DGame.getFloor();
+        score = Wolf3DGame.getScore();
+        lives = Wolf3DGame.getLives();
+        lifeEnergy = Wolf3DGame.getLifeEnergy();
+        ammo = Weapons.getAmmo();
+        playerHasGoldKey = Player.isPlayerHasGoldKey();
+        playerHasSilverKey = Player.isPlayerHasSilverKey();
+        faceAnimationIndex = HUD.getFaceAnimationIndex();
+        Weapon weapon = Weapons.getCurrentPlayerWeapon();
+        weaponHudPic = weapon != null ? weapon.getHudPic() : null;
+        weaponSprite = Weapons.getCurrentPlayerWeaponSprite();
+
+        flashScreenAlpha = 0.0;
+
+        fizzleFadeDirection = FizzleFade.getFadeDirection();
+        fizzleFadePixelCount = FizzleFade.getPixelCount();
+        fizzleFadeColor = FizzleFade.getFadeColor() != null
+                                ? FizzleFade.getFadeColor().getRGB() : 0;
+        
+        // scene specific state
+        if (scene != null) {
+            scene.captureSnapshot(this);
+        }
+    }
+
+    public void addSprite(Obj obj, double x, double y, BufferedImage sprite) {
+
+        if (spritesCount == spriteObjs.length) {
+            int capacity = Math.max(64, 2 * spriteObjs.length);
+            spriteObjs = Arrays.copyOf(spriteObjs, capacity);
+            spriteX = Arrays.copyOf(spriteX, capacity);
+            spriteY = Arrays.copyOf(spriteY, capacity);
+            spriteImages = Arrays.copyOf(spriteImages, capacity);
+        }
+        spriteObjs[spritesCount] = obj;
+        spriteX[spritesCount] = x;
+        spriteY[spritesCount] = y;
+        spriteImages[spritesCount] = sprite;
+        spritesCount++;
+    }
+
+    public Scene getScene() {
+        return scene;
+    }
+
+    public int getFadeValue() {
+        return fadeValue;
+    }
+
+    public boolean isFading() {
+        return fading;
+    }
+
+    public PlayerState getPlayerState() {
+        return playerState;
+    }
+
+    public double getPlayerX() {
+        return playerX;
+    }
+
+    public double getPlayerY() {
+        return playerY;
+    }
+
+    public double getPlayerAngle() {
+        return playerAngle;
+    }
+
+    public boolean isShowUserMsgGoldKeyRequired() {
+        return showUserMsgGoldKeyRequired;
+    }
+
+    public boolean isShowUserMsgSilverKeyRequired() {
+        return showUserMsgSilverKeyRequired;
+    }
+
+    public int getSpritesCount() {
+        return spritesCount;
+    }
+
+    public Obj getSpriteObj(int index) {
+        return spriteObjs[index];
+    }
+
+    public double getSpriteX(int index) {
+        return spriteX[index];
+    }
+
+    public double getSpriteY(int index) {
+        return spriteY[index];
+    }
+
+    public BufferedImage getSpriteImage(int index) {
+        return spriteImages[index];
+    }
+
+    public double[] getOpenRates() {
+        return openRates;
+    }
+
+    // true while a pushwall moves. It moves its tile to the next cell of
+    // the live map (GameMap.getTiles()), which the raycaster reads, so
+    // the open rates of this snapshot can be stale for the frame.
+    public boolean isPushwallMoving() {
+        return pushwallMoving;
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getLifeEnergy() {
+        return lifeEnergy;
+    }
+
+    public int getAmmo() {
+        return ammo;
+    }
+
+    public boolean isPlayerHasGoldKey() {
+        return playerHasGoldKey;
+    }
+
+    public boolean isPlayerHasSilverKey() {
+        return playerHasSilverKey;
+    }
+
+    public int getFaceAnimationIndex() {
+        return faceAnimationIndex;
+    }
+
+    public BufferedImage getWeaponHudPic() {
+        return weaponHudPic;
+    }
+
+    public BufferedImage getWeaponSprite() {
+        return weaponSprite;
+    }
+
+    public void setFlashScreen(double red, double green
+                                        , double blue, double alpha) {
+
+        flashScreenRed = red;
+        flashScreenGreen = green;
+        flashScreenBlue = blue;
+        flashScreenAlpha = alpha;
+    }
+
+    public double getFlashScreenRed() {
+        return flashScreenRed;
+    }
+
+    public double getFlashScreenGreen() {
+        return flashScreenGreen;
+    }
+
+    public double getFlashScreenBlue() {
+        return flashScreenBlue;
+    }
+
+    public double getFlashScreenAlpha() {
+        return flashScreenAlpha;
+    }
+
+    public int getFizzleFadeDirection() {
+        return fizzleFadeDirection;
+    }
+
+    public int getFizzleFadePixelCount() {
+        return fizzleFadePixelCount;
+    }
+
+    // 0xAARRGGBB
+    public int getFizzleFadeColor() {
+        return fizzleFadeColor;
+    }
+
+}
@@ -27,6 +27,15 @@ public class GameCanvas extends Canvas {
     private BufferStrategy bs;
     private boolean running;
     private Thread gameLoopThread;
+    private Thread simulationThread;
+    
+    // held while the simulation is ticking and capturing the snapshot
+    private final Object simulationLock = new Object();
+    private long lastSimulationTime;
+    private long unprocessedTime;
+    
+    private final FramePacer framePacer = new FramePacer();
+    private final FramePacer simulationPacer = new FramePacer();
     private final Rectangle sizeWithAspectRatio = new Rectangle();
     
     public GameCanvas(Wolf3DGame wolf3DGame) {
@@ -42,14 +51,16 @@ public class GameCanvas extends Canvas {
         updateAspectRatioDimension();
         createBufferStrategy(2);
         bs = getBufferStrategy();
-        offscreen = new BufferedImage(
-                CANVAS_WIDTH, CANVAS_HEIGHT, BufferedImage.TYPE_INT_ARGB);
-        
-        offscreenG2D = offscreen.createGraphics();
+        FrameBuffer.updateResolution();
+        offscreen = FrameBuffer.getImage();
+        offscreenG2D = FrameBuffer.getGraphics();
         wolf3DGame.start();
         running = true;
+        lastSimulationTime = System.nanoTime();
         gameLoopThread = new Thread(new MainLoop());
         gameLoopThread.start();
+        simulationThread = new Thread(new SimulationLoop());
+        simulationThread.start();
         addKeyListener(new Input());
         addComponentListener(new ResizeListener());
     }
@@ -77,31 +88,96 @@ public class GameCanvas extends Canvas {
         sizeWithAspectRatio.setBounds(left, top, width, height);
     }
     
+    // pacer of the presented frames
+    public FramePacer getFramePacer() {
+        return framePacer;
+    }
+    
+    // runs the pending fixed updates and the variable update, 
+    // then publishes the state to be rendered
+    private void simulate() {
+        synchronized (simulationLock) {
+            long currentTime = System.nanoTime();
+            long delta = currentTime - lastSimulationTime;
+            lastSimulationTime = currentTime;
+            unprocessedTime += delta;
+            int fixedUpdates = 0;
+            while (unprocessedTime >= TIME_PER_UPDATE) {
+                if (fixedUpdates == MAX_FIXED_UPDATES_PER_FRAME) {
+                    EngineMetrics.fixedUpdatesDropped(
+                                        unprocessedTime / TIME_PER_UPDATE);
+                    
+                    unprocessedTime %= TIME_PER_UPDATE;
+                    break;
+                }
+                unprocessedTime -= TIME_PER_UPDATE;
+                wolf3DGame.fixedUpdate();
+                fixedUpdates++;
+                PerfOverlay.tick();
+                EngineMetrics.fixedUpdateExecuted();
+            }
+            wolf3DGame.update(delta * 0.000000001);
+            FrameSnapshot.capture();
+        }
+    }
+    
+    // pipelined mode: simulates the next ticks while 
+    // the render thread draws the previous snapshot.
+    private class SimulationLoop implements Runnable {
+
+        @Override
+        public void run() {
+            while (running) {
+                if (pipelinedRendering) {
+                    simulate();
+                }
+                simulationPacer.waitNextFrame(TIME_PER_UPDATE);
+            }
+        }
+        
+    }
+    
     private class MainLoop implements Runnable {
 
         @Override
         public void run() {
-            long currentTime = System.nanoTime();
-            long lastTime = currentTime;
-            long delta;
-            long unprocessedTime = 0;
             while (running) {
-                currentTime = System.nanoTime();
-                delta = currentTime - lastTime;
-                unprocessedTime += delta;
-                lastTime = currentTime;
-                while (unprocessedTime >= TIME_PER_UPDATE) {
-                    unprocessedTime -= TIME_PER_UPDATE;
-                    wolf3DGame.fixedUpdate();
+                if (!pipelinedRendering) {
+                    simulate();
                 }
-                wolf3DGame.update(delta * 0.000000001);
+                FrameSnapshot snapshot = FrameSnapshot.acquire();
                 
+                // internal render resolution changed ?
+                if (FrameBuffer.updateResolution()) {
+                    offscreen = FrameBuffer.getImage();
+                    offscreenG2D = FrameBuffer.getGraphics();
+                }
+                
+                // scenes that read the live game state can't be drawn 
+                // while the simulation is running. Neither can the stage
+                // while a pushwall moves, since it moves the map tiles.
+                // Under the lock, the latest snapshot matches the live 
+                // state (it is captured at the end of the simulation).
+                Scene scene = snapshot.getScene();
+                if (scene != null && scene.isDrawnFromSnapshot() 
+                        && !snapshot.isFading() 
+                                && !snapshot.isPushwallMoving()) {
+                    
+                    wolf3DGame.draw(offscreenG2D);
+                }
+                else {
+                    synchronized (simulationLock) {
+                        FrameSnapshot.acquire();
+                        wolf3DGame.draw(offscreenG2D);
+                    }
+                }
+                PerfOverlay.draw(offscreenG2D);
+
+                long blitStartTime = PerfOverlay.begin();
                 Graphics2D g = (Graphics2D) bs.getDrawGraphics();
                 
                 g.setRenderingHint(RenderingHints.KEY_INTERPOLATION
                         , RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-        
-                wolf3DGame.draw(offscreenG2D);
 
                 if (keepAspectRatio) {
                     g.clearRect(0, 0, getWidth(), getHeight());
@@ -116,11 +192,12 @@ public class GameCanvas extends Canvas {
 
                 g.dispose();
                 bs.show();
+                PerfOverlay.end(PerfOverlay.Phase.BLIT, blitStartTime);
+                PerfOverlay.endFrame();
+                EngineMetrics.frameRendered();
                 
-                try {
-                    Thread.sleep(1);
-                } catch (InterruptedException ex) {
-                }
+                framePacer.waitNextFrame(
+                        FramePacer.getFramePeriod(framePacing, fpsCap));
             }
         }
         
@@ -4,9 +4,8 @@ import java.awt.Point;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import wolf3d.infra.EngineEvents.LevelLoadEvent;
 import wolf3d.infra.Objs.CollectableObj;
 import static wolf3d.infra.Objs.CollectableObj.ObjId.*;
 import wolf3d.infra.Objs.EnemyObj;
@@ -27,7 +26,7 @@ import static wolf3d.infra.Tiles.TileType.*;
 public class GameMap {
 
     // used to propagate player gunshot sounds to alert enemies
-    private static boolean[][] connectedRooms;
+    private static final RoomGraph roomGraph = new RoomGraph();
 
     public static final int MAP_ROWS = 64;
     public static final int MAP_COLS = 64;
@@ -35,6 +34,9 @@ public class GameMap {
     private static Tile[][] tiles;
     private static Obj[][] objs;
     
+    private static List<DoorTile> doorTiles = new ArrayList<>();
+    private static List<SecretDoorTile> secretDoorTiles = new ArrayList<>();
+    
     private static int totalEnemies;
     private static int totalSecrets;
     private static int totalTreasures;
@@ -52,15 +54,25 @@ public class GameMap {
     }
     
     public static void loadByFloorNumber(int floor) {
+        LevelLoadEvent event = new LevelLoadEvent();
+        event.begin();
         loadByMapIndex(floor - 1);
+        event.floor = floor;
+        event.enemies = Enemies.getEnemies().size();
+        event.doors = doorTiles.size();
+        event.secretDoors = secretDoorTiles.size();
+        event.commit();
     }
     
     private static void loadByMapIndex(int mapIndex) {
+        TimerWheel.clear();
         Enemies.clear();
+        Doors.clear();
+        SecretDoors.clear();
         totalEnemies = 0;
         totalSecrets = 0;
         totalTreasures = 0;
-        connectedRooms = new boolean[256][256];
+        roomGraph.clear();
         tiles = new Tile[MAP_ROWS][MAP_COLS];
         objs = new Obj[MAP_ROWS][MAP_COLS];
         int[][] map = Resource.getMap(mapIndex);
@@ -68,6 +80,8 @@ public class GameMap {
         int[] mapObjs = map[1];
         List<DoorTile> doorTiles = new ArrayList<>();
         List<SecretDoorTile> secretDoorTiles = new ArrayList<>();
+        GameMap.doorTiles = doorTiles;
+        GameMap.secretDoorTiles = secretDoorTiles;
         for (int r = 0; r < MAP_ROWS; r++) {
             for (int c = 0; c < MAP_COLS; c++) {
                 int mi = r * MAP_COLS + c;
@@ -213,6 +227,10 @@ public class GameMap {
                 }
             }
         }
+        
+        PVS.compute(mapIndex);
+        LineOfSight.reset();
+        ChaseFlowField.invalidate();
     }
 
     public static Tile getTile(int col, int row) {
@@ -237,26 +255,37 @@ public class GameMap {
         return objs;
     }
 
+    public static List<DoorTile> getDoorTiles() {
+        return doorTiles;
+    }
+
+    public static List<SecretDoorTile> getSecretDoorTiles() {
+        return secretDoorTiles;
+    }
+
     public static void connectRooms(int r1, int r2) {
-        connectedRooms[r1][r2] = true;
-        connectedRooms[r2][r1] = true;
+        roomGraph.connect(r1, r2);
     }
 
     public static void disconnectRooms(int r1, int r2) {
-        connectedRooms[r1][r2] = false;
-        connectedRooms[r2][r1] = false;
+        roomGraph.disconnect(r1, r2);
     }
     
     public static boolean isRoomConnected(int r1, int r2) {
-        return connectedRooms[r1][r2];
+        return roomGraph.isConnected(r1, r2);
+    }
+    
+    // through any number of open doors
+    public static boolean isRoomReachable(int r1, int r2) {
+        return roomGraph.isReachable(r1, r2);
     }
     
     // --- raycasting ---
     
-    private static final Set<Obj> objsDuringRaycast = new HashSet<>();
+    private static final VisibleCells cellsDuringRaycast = new VisibleCells();
 
-    public static Set<Obj> getObjsDuringRaycast() {
-        return objsDuringRaycast;
+    public static VisibleCells getCellsDuringRaycast() {
+        return cellsDuringRaycast;
     }
 
     public static final int MAX_RAYCAST_DISTANCE = 1000;
@@ -270,6 +299,7 @@ public class GameMap {
         private double distance;
         private int wallSide;
         private double textureOffset;
+        private int steps;
 
         public boolean isIntersecting() {
             return intersecting;
@@ -298,6 +328,11 @@ public class GameMap {
         public double getTextureOffset() {
             return textureOffset;
         }
+
+        // number of cells visited by the DDA
+        public int getSteps() {
+            return steps;
+        }
         
     }
     
@@ -316,9 +351,29 @@ public class GameMap {
     
     public static void performRaycastDDA(double srcX, double srcY, double angle
                             , RaycastResult result, double maxRayDistance) {
+        
+        performRaycastDDA(srcX, srcY, angle, result, maxRayDistance, null);
+    }
+    
+    // visibleCells: collects the cells visited by the ray. 
+    //               Each thread must use its own set (null = don't collect).
+    public static void performRaycastDDA(double srcX, double srcY, double angle
+                            , RaycastResult result, double maxRayDistance
+                                            , VisibleCells visibleCells) {
+
+        performRaycastDDA(srcX, srcY, Math.cos(angle), Math.sin(angle)
+                            , result, maxRayDistance, visibleCells, null);
+    }
+    
+    // dx, dy: normalized direction of the ray
+    // openRates: open rate of the doors and secret doors indexed by 
+    //            row * MAP_COLS + col (see FrameSnapshot), 
+    //            null = use the current open rates of the tiles.
+    public static void performRaycastDDA(double srcX, double srcY
+            , double dx, double dy, RaycastResult result
+                , double maxRayDistance, VisibleCells visibleCells
+                                                    , double[] openRates) {
 
-        double dy = Math.sin(angle);
-        double dx = Math.cos(angle);
         dx = dx == 0 ? DIV_BY_ZERO_REPLACE : dx;
         dy = dy == 0 ? DIV_BY_ZERO_REPLACE : dy;
         int dxSign = (int) Math.signum(dx);
@@ -332,7 +387,14 @@ public class GameMap {
         double totalDistDy = distDy * dySign * startDy;
         result.intersecting = false;
         result.distance = 0;
+        result.steps = 0;
+        if (visibleCells != null && getTile(result.rayCell.x
+                                    , result.rayCell.y) != null) {
+            
+            visibleCells.add(result.rayCell.x, result.rayCell.y);
+        }
         while (result.distance < maxRayDistance) {
+            result.steps++;
             if (totalDistDx < totalDistDy) {
                 result.rayCell.x += dxSign;
                 result.distance = totalDistDx;
@@ -350,12 +412,9 @@ public class GameMap {
             result.tile = GameMap.getTile(result.rayCell.x, result.rayCell.y);
             if (result.tile == null) return;
 
-            // collect visible objs during this raycasting
-            Obj obj = GameMap.getObj(result.rayCell.x, result.rayCell.y);
-            if (obj != null && obj.isDrawable() 
-                                && !objsDuringRaycast.contains(obj)) {
-                
-                objsDuringRaycast.add(obj);
+            // collect visible cells during this raycasting
+            if (visibleCells != null) {
+                visibleCells.add(result.rayCell.x, result.rayCell.y);
             }
             
             // check door
@@ -366,7 +425,10 @@ public class GameMap {
                 double ipx = srcX + result.distance * dx;
                 double ipy = srcY + result.distance * dy;
 
-                double doorOpenRate = doorTile.getDoorOpenRate();
+                double doorOpenRate = openRates == null 
+                        ? doorTile.getDoorOpenRate() 
+                        : openRates[result.rayCell.y * MAP_COLS 
+                                                    + result.rayCell.x];
                 boolean doorVisible = ipy - (int) ipy >= doorOpenRate; 
                 double textureOffset = -doorOpenRate;
                 if (isDoorHoriz) {
@@ -391,7 +453,10 @@ public class GameMap {
                 boolean isDoorHoriz 
                         = secretDoorTile.getDoorSide() == TILE_HORIZONTAL;
                 
-                double sdor = secretDoorTile.getSecretDoorOpenRate(); 
+                double sdor = openRates == null 
+                        ? secretDoorTile.getSecretDoorOpenRate() 
+                        : openRates[result.rayCell.y * MAP_COLS 
+                                                    + result.rayCell.x];
                 double openRate = sdor + 0.000001;
                 result.distance += (isDoorHoriz ? distDy : distDx) * openRate;
                 double ipx = srcX + result.distance * dx;
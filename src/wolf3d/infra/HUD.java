@@ -2,15 +2,23 @@ package wolf3d.infra;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import static wolf3d.infra.Settings.*;
+import wolf3d.infra.TimerWheel.Timer;
+import wolf3d.infra.TimerWheel.TimerListener;
 
 /**
  * HUD class.
  * 
+ * The HUD is drawn into the frame buffer only when one of its values or 
+ * the resolution changes, and the drawn rows are kept as a cached layer 
+ * (RGB or indexed pixels, at the internal render resolution), which is 
+ * just copied back in the other frames.
+ * 
  * @author Leonardo Ono (ono.leo80@gmail.com)
  */
 public class HUD {
     
-    private static final int FACE_START_PIC_INDEX;
+    private static final BufferedImage[] FACE_PICS = new BufferedImage[24];
     private static final BufferedImage FOOTER_PIC;
     private static final BufferedImage[] DIGITS = new BufferedImage[10];
     
@@ -18,7 +26,10 @@ public class HUD {
     private static final BufferedImage KEY_GOLD_PIC;
     private static final BufferedImage KEY_SILVER_PIC;
     static {
-        FACE_START_PIC_INDEX = Resource.getIntProperty("PIC_HUD_FACE");
+        int faceStartPicIndex = Resource.getIntProperty("PIC_HUD_FACE");
+        for (int i = 0; i < FACE_PICS.length; i++) {
+            FACE_PICS[i] = Resource.getPic(faceStartPicIndex + i);
+        }
         FOOTER_PIC = Resource.getPic("HUD_FOOTER");
         KEY_EMPTY_PIC = Resource.getPic("HUD_KEY_EMPTY");
         KEY_GOLD_PIC = Resource.getPic("HUD_KEY_GOLD");
@@ -32,87 +43,215 @@ public class HUD {
     }
 
     private static int faceAnimationIndex = 0;
-    private static long faceNextFrameTime = 0;
+    private static final Timer faceTimer = new Timer(null);
+    private static final TimerListener NEXT_FACE_FRAME = HUD::nextFaceFrame;
     
     public static void fixedUpdate() {
-        if (Util.getTimeMs() >= faceNextFrameTime) {
-            faceNextFrameTime = Util.getTimeMs() + Util.random(300, 500);
-            faceAnimationIndex = Util.random(0, 2);
+        // the timers are cleared when a map is loaded
+        if (!faceTimer.isScheduled()) {
+            nextFaceFrame(faceTimer);
         }
     }
 
+    private static void nextFaceFrame(Timer timer) {
+        faceAnimationIndex = Util.random(0, 2);
+        TimerWheel.schedule(timer, Util.random(300, 500), NEXT_FACE_FRAME);
+    }
+
+    public static int getFaceAnimationIndex() {
+        return faceAnimationIndex;
+    }
+    
+    // true = the pics are drawn into the indexed frame buffer pixels
+    private static boolean indexed;
+    
+    // draws the HUD values of the snapshot being rendered
     public static void draw(Graphics2D g) {
-        g.drawImage(FOOTER_PIC, 0, 160, null);
-        drawNumber(g, Wolf3DGame.getFloor(), 2, 16, 176); // floor
-        drawNumber(g, Wolf3DGame.getScore(), 6, 48, 176); // score
-        drawNumber(g, Wolf3DGame.getLives(), 1, 112, 176); // lives
-        drawNumber(g, Wolf3DGame.getLifeEnergy(), 3, 168, 176); // life energy
-        drawNumber(g, Weapons.getAmmo(), 2, 216, 176); // ammo
+        draw(g, false);
+    }
+    
+    // --- cached layer ---
+    
+    // frame buffer rows of the HUD when the layer was drawn
+    private static int[] layerPixels = new int[0];
+    private static byte[] layerIndexedPixels = new byte[0];
+    private static boolean layerValid;
+    
+    // values the layer was drawn with
+    private static int layerWidth;
+    private static int layerHeight;
+    private static boolean layerIndexed;
+    private static int layerFloor;
+    private static int layerScore;
+    private static int layerLives;
+    private static int layerLifeEnergy;
+    private static int layerAmmo;
+    private static boolean layerGoldKey;
+    private static boolean layerSilverKey;
+    private static int layerFaceAnimationIndex;
+    private static BufferedImage layerWeaponHudPic;
+    
+    private static boolean isLayerValid(FrameSnapshot snapshot
+                                , int width, int height, boolean indexed) {
+        
+        return layerValid && layerWidth == width && layerHeight == height
+            && layerIndexed == indexed
+            && layerFloor == snapshot.getFloor()
+            && layerScore == snapshot.getScore()
+            && layerLives == snapshot.getLives()
+            && layerLifeEnergy == snapshot.getLifeEnergy()
+            && layerAmmo == snapshot.getAmmo()
+            && layerGoldKey == snapshot.isPlayerHasGoldKey()
+            && layerSilverKey == snapshot.isPlayerHasSilverKey()
+            && layerFaceAnimationIndex == snapshot.getFaceAnimationIndex()
+            && layerWeaponHudPic == snapshot.getWeaponHudPic();
+    }
+    
+    private static void saveLayer(FrameSnapshot snapshot
+                                , int width, int height, boolean indexed) {
         
-        drawKeys(g);
-        drawFunnyFace(g);
+        int top = (CANVAS_HEIGHT - HUD_HEIGHT) * height / CANVAS_HEIGHT;
+        int size = (height - top) * width;
+        if (indexed) {
+            if (layerIndexedPixels.length != size) {
+                layerIndexedPixels = new byte[size];
+            }
+            System.arraycopy(FrameBuffer.getIndexedPixels(), top * width
+                                        , layerIndexedPixels, 0, size);
+        }
+        else {
+            if (layerPixels.length != size) {
+                layerPixels = new int[size];
+            }
+            System.arraycopy(FrameBuffer.getPixels(), top * width
+                                                , layerPixels, 0, size);
+        }
+        layerValid = true;
+        layerWidth = width;
+        layerHeight = height;
+        layerIndexed = indexed;
+        layerFloor = snapshot.getFloor();
+        layerScore = snapshot.getScore();
+        layerLives = snapshot.getLives();
+        layerLifeEnergy = snapshot.getLifeEnergy();
+        layerAmmo = snapshot.getAmmo();
+        layerGoldKey = snapshot.isPlayerHasGoldKey();
+        layerSilverKey = snapshot.isPlayerHasSilverKey();
+        layerFaceAnimationIndex = snapshot.getFaceAnimationIndex();
+        layerWeaponHudPic = snapshot.getWeaponHudPic();
+    }
+    
+    private static void restoreLayer(int width, int height, boolean indexed) {
+        int top = (CANVAS_HEIGHT - HUD_HEIGHT) * height / CANVAS_HEIGHT;
+        if (indexed) {
+            System.arraycopy(layerIndexedPixels, 0, FrameBuffer
+                .getIndexedPixels(), top * width, layerIndexedPixels.length);
+        }
+        else {
+            System.arraycopy(layerPixels, 0, FrameBuffer.getPixels()
+                                        , top * width, layerPixels.length);
+        }
+    }
+    
+    // indexed = true draws into the indexed frame buffer pixels
+    // (the layer keeps the HUD rows after drawing the footer over them, 
+    // only the HUD draws into these rows)
+    public static void draw(Graphics2D g, boolean indexed) {
+        FrameSnapshot snapshot = FrameSnapshot.getRendering();
+        int width = FrameBuffer.getWidth();
+        int height = FrameBuffer.getHeight();
+        if (isLayerValid(snapshot, width, height, indexed)) {
+            restoreLayer(width, height, indexed);
+            return;
+        }
+        drawValues(g, snapshot, indexed);
+        saveLayer(snapshot, width, height, indexed);
+    }
+    
+    private static void drawValues(
+            Graphics2D g, FrameSnapshot snapshot, boolean indexed) {
+        
+        HUD.indexed = indexed;
+        drawPic(g, FOOTER_PIC, 0, 160);
+        drawNumber(g, snapshot.getFloor(), 2, 16, 176); // floor
+        drawNumber(g, snapshot.getScore(), 6, 48, 176); // score
+        drawNumber(g, snapshot.getLives(), 1, 112, 176); // lives
+        drawNumber(g, snapshot.getLifeEnergy(), 3, 168, 176); // life energy
+        drawNumber(g, snapshot.getAmmo(), 2, 216, 176); // ammo
+        
+        drawKeys(g, snapshot);
+        drawFunnyFace(g, snapshot);
                 
         // draw current selected weapon
-        if (Weapons.getCurrentPlayerWeapon() != null) {
-            BufferedImage weaponpic 
-                    = Weapons.getCurrentPlayerWeapon().getHudPic();
-            
-            g.drawImage(weaponpic, 256, 168, null);
+        if (snapshot.getWeaponHudPic() != null) {
+            drawPic(g, snapshot.getWeaponHudPic(), 256, 168);
         }
     }
     
-    private static void drawKeys(Graphics2D g) {
+    private static void drawKeys(Graphics2D g, FrameSnapshot snapshot) {
         // draw gold key
-        if (Player.isPlayerHasGoldKey()) {
-            g.drawImage(KEY_GOLD_PIC, 240, 164, null);
+        if (snapshot.isPlayerHasGoldKey()) {
+            drawPic(g, KEY_GOLD_PIC, 240, 164);
         }
         else {
-            g.drawImage(KEY_EMPTY_PIC, 240, 164, null);
+            drawPic(g, KEY_EMPTY_PIC, 240, 164);
         }
         // draw silver key
-        if (Player.isPlayerHasSilverKey()) {
-            g.drawImage(KEY_SILVER_PIC, 240, 180, null);
+        if (snapshot.isPlayerHasSilverKey()) {
+            drawPic(g, KEY_SILVER_PIC, 240, 180);
         }
         else {
-            g.drawImage(KEY_EMPTY_PIC, 240, 180, null);
+            drawPic(g, KEY_EMPTY_PIC, 240, 180);
         }
     }
     
-    private static void drawFunnyFace(Graphics2D g) {
+    private static void drawFunnyFace(Graphics2D g, FrameSnapshot snapshot) {
+        int lifeEnergy = snapshot.getLifeEnergy();
         int faceIndex = 0;
-        if (Wolf3DGame.getLifeEnergy() <= 0) faceIndex = 7; 
-        else if (Wolf3DGame.getLifeEnergy() <= 10) faceIndex = 6; 
-        else if (Wolf3DGame.getLifeEnergy() <= 20) faceIndex = 5; 
-        else if (Wolf3DGame.getLifeEnergy() <= 30) faceIndex = 4; 
-        else if (Wolf3DGame.getLifeEnergy() <= 40) faceIndex = 3; 
-        else if (Wolf3DGame.getLifeEnergy() <= 50) faceIndex = 2; 
-        else if (Wolf3DGame.getLifeEnergy() <= 60) faceIndex = 1; 
-        else if (Wolf3DGame.getLifeEnergy() <= 70) faceIndex = 0; 
+        if (lifeEnergy <= 0) faceIndex = 7; 
+        else if (lifeEnergy <= 10) faceIndex = 6; 
+        else if (lifeEnergy <= 20) faceIndex = 5; 
+        else if (lifeEnergy <= 30) faceIndex = 4; 
+        else if (lifeEnergy <= 40) faceIndex = 3; 
+        else if (lifeEnergy <= 50) faceIndex = 2; 
+        else if (lifeEnergy <= 60) faceIndex = 1; 
+        else if (lifeEnergy <= 70) faceIndex = 0; 
         
-        BufferedImage facePic = Resource.getPic(
-                FACE_START_PIC_INDEX + faceIndex * 3 + faceAnimationIndex);
+        BufferedImage facePic 
+                = FACE_PICS[faceIndex * 3 + snapshot.getFaceAnimationIndex()];
         
-        if (Wolf3DGame.getLifeEnergy() == 0) {
-            facePic = Resource.getPic(FACE_START_PIC_INDEX + faceIndex * 3);
+        if (lifeEnergy == 0) {
+            facePic = FACE_PICS[faceIndex * 3];
         }
         
-        g.drawImage(facePic, 136, 164, null);
+        drawPic(g, facePic, 136, 164);
+    }
+    
+    private static void drawPic(
+                    Graphics2D g, BufferedImage pic, int x, int y) {
+        
+        if (indexed) {
+            FrameBuffer.drawIndexedImage(
+                        pic, x, y, pic.getWidth(), pic.getHeight());
+        }
+        else {
+            g.drawImage(pic, x, y, null);
+        }
     }
     
     public static void drawNumber(
             Graphics2D g, int number, int numberOfDigits, int x, int y) {
         
-        String numberStr = " ".repeat(numberOfDigits) + number;
-        numberStr = numberStr.substring(
-                numberStr.length() - numberOfDigits, numberStr.length());
-        
-        for (int i = 0; i < numberStr.length(); i++) {
-            char c = numberStr.charAt(i);
-            if (c != ' ') {
-                int d = c - '0';
-                g.drawImage(DIGITS[d], x, y, null);
+        // right aligned, only the last numberOfDigits digits are drawn
+        int digitWidth = DIGITS[0].getWidth();
+        x += (numberOfDigits - 1) * digitWidth;
+        for (int i = 0; i < numberOfDigits; i++) {
+            drawPic(g, DIGITS[number % 10], x, y);
+            number /= 10;
+            if (number == 0) {
+                break;
             }
-            x += DIGITS[0].getWidth();
+            x -= digitWidth;
         }
     }
     
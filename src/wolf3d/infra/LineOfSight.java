@@ -0,0 +1,137 @@
+package wolf3d.infra;
+
+import java.util.Arrays;
+import static wolf3d.infra.GameMap.MAP_COLS;
+import static wolf3d.infra.GameMap.MAP_ROWS;
+import wolf3d.infra.GameMap.RaycastResult;
+import static wolf3d.infra.Player.PLAYER_RADIUS;
+import wolf3d.infra.Tiles.FloorTile;
+import wolf3d.infra.Tiles.Tile;
+import static wolf3d.infra.Tiles.TileType.FLOOR;
+
+/**
+ * LineOfSight class.
+ *
+ * Line of sight queries of the enemy AI (can the enemy see the player?),
+ * shared by all the enemies. The result is cached for each enemy cell
+ * (the ray is cast from the center of the cell to the player) until the
+ * player moves or a door or pushwall moves, so the AI cost depends on the
+ * number of distinct enemy cells instead of the number of enemies.
+ *
+ * Before casting a ray, the query is rejected if the player cell isn't in
+ * the potentially visible set of the enemy cell (see PVS), or if their
+ * rooms aren't connected by open doors. The rooms are only compared for
+ * plain floor cells (not ambush, secret or door cells) and until the
+ * first pushwall moves, since a pushwall opens a way between the rooms
+ * without any door. The ray only goes as far as the player and doesn't
+ * collect the visible cells, so it doesn't touch the render state.
+ *
+ * Only used by the simulation thread.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class LineOfSight {
+
+    private static final int[] stamps = new int[MAP_ROWS * MAP_COLS];
+    private static final boolean[] results = new boolean[MAP_ROWS * MAP_COLS];
+    private static int epoch = 1;
+
+    private static double cachedPlayerX;
+    private static double cachedPlayerY;
+    private static boolean pushwallMoved;
+
+    private static final RaycastResult raycastResult = new RaycastResult();
+
+    // called when the map is loaded
+    public static void reset() {
+        pushwallMoved = false;
+        invalidate();
+    }
+
+    public static void invalidate() {
+        epoch++;
+        // after wrapping around, old stamps could match the new epoch
+        if (epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    public static void pushwallMoved() {
+        pushwallMoved = true;
+        invalidate();
+    }
+
+    // true if the player can be seen from the center of the cell
+    public static boolean canSeePlayer(int col, int row) {
+        double playerX = Player.getPlayerX();
+        double playerY = Player.getPlayerY();
+        if (playerX != cachedPlayerX || playerY != cachedPlayerY) {
+            cachedPlayerX = playerX;
+            cachedPlayerY = playerY;
+            invalidate();
+        }
+
+        int cell = row * MAP_COLS + col;
+        if (stamps[cell] == epoch) {
+            EngineMetrics.lineOfSightQueried(false);
+            return results[cell];
+        }
+
+        int playerCol = (int) playerX;
+        int playerRow = (int) playerY;
+        boolean visible = false;
+        boolean rayCast = false;
+        if (PVS.isVisible(col, row, playerCol, playerRow)
+                && !areRoomsDisconnected(col, row, playerCol, playerRow)) {
+
+            visible = isLineClear(col + 0.5, row + 0.5, playerX, playerY);
+            rayCast = true;
+        }
+        EngineMetrics.lineOfSightQueried(rayCast);
+
+        stamps[cell] = epoch;
+        results[cell] = visible;
+        return visible;
+    }
+
+    private static boolean areRoomsDisconnected(
+                                int col1, int row1, int col2, int row2) {
+
+        if (pushwallMoved) {
+            return false;
+        }
+        Tile tile1 = GameMap.getTile(col1, row1);
+        Tile tile2 = GameMap.getTile(col2, row2);
+        if (!isPlainFloor(tile1) || !isPlainFloor(tile2)) {
+            return false;
+        }
+        return !GameMap.isRoomReachable(tile1.getId(), tile2.getId());
+    }
+
+    private static boolean isPlainFloor(Tile tile) {
+        if (tile == null || tile.getType() != FLOOR) {
+            return false;
+        }
+        FloorTile floorTile = (FloorTile) tile;
+        return !floorTile.isAmbush() && !floorTile.isSecret();
+    }
+
+    // the ray stops at the distance of the target
+    private static boolean isLineClear(
+                    double srcX, double srcY, double dstX, double dstY) {
+
+        double dx = dstX - srcX;
+        double dy = dstY - srcY;
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance < PLAYER_RADIUS) {
+            return true;
+        }
+        GameMap.performRaycastDDA(srcX, srcY, dx / distance, dy / distance
+                            , raycastResult, distance, null, null);
+
+        return !raycastResult.isIntersecting() || raycastResult.getDistance()
+                                    >= distance - PLAYER_RADIUS - 0.000001;
+    }
+
+}
@@ -2,9 +2,7 @@ package wolf3d.infra;
 
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import wolf3d.infra.GameMap.RaycastResult;
 import wolf3d.infra.Objs.CollectableObj.CollectableType;
 import wolf3d.infra.Objs.CollectableObj.ObjId;
 import wolf3d.infra.Objs.EnemyObj.EnemyState;
@@ -12,11 +10,11 @@ import static wolf3d.infra.Objs.EnemyObj.EnemyState.*;
 import wolf3d.infra.Objs.EnemyObj.EnemyType;
 import static wolf3d.infra.Objs.EnemyObj.EnemyType.*;
 import static wolf3d.infra.Objs.ObjType.*;
-import static wolf3d.infra.Player.PLAYER_RADIUS;
 import wolf3d.infra.Resource.EndPlayerAnimation;
 import wolf3d.infra.Resource.EnemyAnimation;
 import wolf3d.infra.Tiles.Tile;
 import static wolf3d.infra.Tiles.TileType.DOOR;
+import wolf3d.infra.TimerWheel.Timer;
 
 /**
  * Objs class.
@@ -44,6 +42,11 @@ public class Objs {
         protected int sizeVer;
         protected double distanceFromPlayer;
         
+        // position in the sprites drawing order of the last frame
+        // (only used by SpriteOrder in the render thread)
+        int orderFrame;
+        int orderPosition;
+        
         public Obj(int id, int col, int row, ObjType type, boolean drawable) {
             
             this.id = id;
@@ -239,7 +242,7 @@ public class Objs {
         private boolean use360View;
         private EnemyAnimation animationInfo;
         private double animationFrame;
-        private long reactTime;
+        private final Timer reactTimer = new Timer(this);
         private boolean ableToOpenDoor;
         private boolean keepDirection;
         private long attackTime;
@@ -393,12 +396,12 @@ public class Objs {
         }
 
         public int getAnimationFramesCount() {
-            List<Integer> frames = animationInfo.getFrames(enemyState);
+            int[] frames = animationInfo.getFrames(enemyState);
             if (frames == null) {
                 return 0;
             }
             else {
-                return frames.size();
+                return frames.length;
             }
         }
 
@@ -416,8 +419,8 @@ public class Objs {
             if (use360View && !boss) {
                 spriteOffset = calculate360ViewSpriteIdOffset();
             }
-            List<Integer> frames = animationInfo.getFrames(enemyState);
-            int spriteIndex = frames.get((int) animationFrame + spriteOffset);
+            int[] frames = animationInfo.getFrames(enemyState);
+            int spriteIndex = frames[(int) animationFrame + spriteOffset];
             sprite = Resource.getSprite(spriteIndex);
             return sprite;
         }
@@ -432,12 +435,13 @@ public class Objs {
             }
         }
 
-        public long getReactTime() {
-            return reactTime;
+        public Timer getReactTimer() {
+            return reactTimer;
         }
 
-        public void setReactTime(long reactTime) {
-            this.reactTime = reactTime;
+        // the enemy reacts when the timer expires (see Enemies.react())
+        public void startReactTimer(long delayMs) {
+            TimerWheel.schedule(reactTimer, delayMs, Enemies.REACT);
         }
 
         public void chaseReact() {
@@ -445,7 +449,7 @@ public class Objs {
                     || (enemyState == WALK && enemyRestoreState == PATROL)) {
                 
                 enemyState = CHASE_REACT;
-                reactTime = Util.getTimeMs() + Util.random(250, 750);
+                startReactTimer(Util.random(250, 750));
             }
         }
 
@@ -454,7 +458,7 @@ public class Objs {
                     || (enemyState == WALK && enemyRestoreState == CHASE)) {
                 
                 enemyState = ATTACK_REACT;
-                reactTime = Util.getTimeMs() + Util.random(50, 500);
+                startReactTimer(Util.random(50, 500));
                 use360View = false;
                 animationFrame = 0;
             }
@@ -521,21 +525,12 @@ public class Objs {
             return Math.atan2(dy, dx);
         }
 
-        private final RaycastResult raycastResult 
-                                        = new GameMap.RaycastResult();
-    
         public boolean canSeePlayer(boolean playerInFront) {
             int viewDir = calculate360ViewSpriteIdOffset();
             if (playerInFront && viewDir != 0 && viewDir != 1 && viewDir != 7) {
                 return false;
             }
-            double srcX = enemyX;
-            double srcY = enemyY;
-            double srcAngle = calculateRelativeAngleBetweenPlayer();
-            GameMap.performRaycastDDA(srcX, srcY, srcAngle, raycastResult);
-            double distFromPlayer = calculateDistanceFromPlayer();
-            double compDist = distFromPlayer - PLAYER_RADIUS - 0.000001;
-            return raycastResult.getDistance() >= compDist;
+            return LineOfSight.canSeePlayer((int) enemyX, (int) enemyY);
         }
 
         public void kill() {
@@ -696,9 +691,9 @@ public class Objs {
         
         @Override
         public BufferedImage getSprite() {
-            List<Integer> frames = animationInfo.getFrames(state);
+            int[] frames = animationInfo.getFrames(state);
             if (frames != null) {
-                int spriteIndex = frames.get((int) animationFrame);
+                int spriteIndex = frames[(int) animationFrame];
                 sprite = Resource.getSprite(spriteIndex);
             }
             return sprite;
@@ -736,13 +731,13 @@ public class Objs {
             else {
                 endPlayerX += vx;
                 endPlayerY += vy;
-                animationFrame = (int) (System.nanoTime() * 0.000000005) % 4;
+                animationFrame = (int) (Util.getTimeNano() * 0.000000005) % 4;
             }
         }
 
         private void updateCelebrate() {
             animationFrame += 0.1;
-            int framesSize = animationInfo.getFrames(state).size();
+            int framesSize = animationInfo.getFrames(state).length;
             if (animationFrame >= framesSize) {
                 animationFrame = framesSize - 1;
                 endStartTime = Util.getTimeMs() + 3000;
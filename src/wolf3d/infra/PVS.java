@@ -0,0 +1,384 @@
+package wolf3d.infra;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import static wolf3d.infra.GameMap.MAP_COLS;
+import static wolf3d.infra.GameMap.MAP_ROWS;
+import static wolf3d.infra.Settings.*;
+import wolf3d.infra.Tiles.Tile;
+import static wolf3d.infra.Tiles.TileType.*;
+
+/**
+ * PVS class.
+ *
+ * Potentially visible set of the current map, computed when the map is
+ * loaded: for each cell, a 64x64 bitset (one long per map row) of the
+ * cells that can ever be visible from it. So the rendering and the enemy
+ * AI can reject the entities that can't be seen with one bit test.
+ *
+ * The set is conservative: every cell that a straight line from any point
+ * of the cell can reach without entering a wall (with the doors and secret
+ * doors considered open) is in the set. Each line is either x major
+ * (|dy| <= |dx|) or y major, so for each cell and each of the 4 major
+ * directions, the lines are swept one map column (or row) at a time,
+ * keeping for each range of slopes the intervals where the lines can
+ * cross the next column. A line is only dropped when the points where it
+ * enters and leaves a column aren't in the same run of transparent cells,
+ * so a line that really reaches a cell is never dropped (the intervals
+ * only get bigger than the exact ones). The only exception are the lines
+ * that pass exactly through the corner between two diagonal walls, which
+ * a DDA raycast can't pass either. Then the result is made symmetric (if
+ * b is visible from a, a is visible from b) and each set is expanded by
+ * one cell in all directions, since the sprites can stick out into the
+ * neighbor cells.
+ *
+ * The sets are kept in memory for each map, since the map is loaded again
+ * every time the player dies. When Settings.pvsDiskCache is true, they
+ * are also kept in the file PVS[map index].CACHE in the user directory.
+ * Both are reused while the walls of the map are the same.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class PVS {
+
+    private static final int CELLS = MAP_ROWS * MAP_COLS;
+
+    // the slopes (-1~1) of the lines of each major direction are split in
+    // these ranges. The interval limits are multiples of 1/16, so they are
+    // exact (no rounding errors).
+    private static final int SLOPE_RANGES = 32;
+
+    private static final int CACHE_FILE_ID = 0x50565332; // "PVS2"
+
+    private static class CachedSets {
+
+        private final long[] transparentCells;
+        private final long[] visibleCells;
+
+        private CachedSets(long[] transparentCells, long[] visibleCells) {
+            this.transparentCells = transparentCells;
+            this.visibleCells = visibleCells;
+        }
+
+    }
+
+    // map index -> sets
+    private static final Map<Integer, CachedSets> cachedSets = new HashMap<>();
+
+    // [from cell * MAP_ROWS + to row] bit to col
+    private static long[] visibleCells = new long[CELLS * MAP_ROWS];
+    private static final long[] tmpRows = new long[MAP_ROWS];
+
+    // [row] bit col, cells that don't block the sight
+    private static final long[] transparentCells = new long[MAP_ROWS];
+
+    // [col] and [row] start and end (exclusive) of each run of transparent
+    // cells, alternated
+    private static final int[][] colRuns = new int[MAP_COLS][];
+    private static final int[][] rowRuns = new int[MAP_ROWS][];
+
+    // true if the cell (col2, row2) can be visible from (col1, row1)
+    public static boolean isVisible(int col1, int row1, int col2, int row2) {
+        if (col1 < 0 || col1 > MAP_COLS - 1 || row1 < 0 || row1 > MAP_ROWS - 1
+            || col2 < 0 || col2 > MAP_COLS - 1
+                || row2 < 0 || row2 > MAP_ROWS - 1) {
+
+            return false;
+        }
+        int from = row1 * MAP_COLS + col1;
+        return (visibleCells[from * MAP_ROWS + row2] & (1L << col2)) != 0;
+    }
+
+    public static int getVisibleCellsCount(int col, int row) {
+        int count = 0;
+        int from = (row * MAP_COLS + col) * MAP_ROWS;
+        for (int r = 0; r < MAP_ROWS; r++) {
+            count += Long.bitCount(visibleCells[from + r]);
+        }
+        return count;
+    }
+
+    private static boolean isTransparent(int col, int row) {
+        return (transparentCells[row] & (1L << col)) != 0;
+    }
+
+    // called after the map was loaded
+    public static void compute(int mapIndex) {
+        Arrays.fill(transparentCells, 0);
+        for (int row = 0; row < MAP_ROWS; row++) {
+            for (int col = 0; col < MAP_COLS; col++) {
+                Tile tile = GameMap.getTile(col, row);
+                if (!tile.isBlockRaycast() || tile.getType() == DOOR
+                                    || tile.getType() == SECRET_DOOR) {
+
+                    transparentCells[row] |= 1L << col;
+                }
+            }
+        }
+
+        CachedSets sets = cachedSets.get(mapIndex);
+        if (sets != null
+                && Arrays.equals(sets.transparentCells, transparentCells)) {
+
+            visibleCells = sets.visibleCells;
+            return;
+        }
+
+        visibleCells = new long[CELLS * MAP_ROWS];
+        File cacheFile = new File(
+                        Resource.USER_DIR + "PVS" + mapIndex + ".CACHE");
+
+        if (!pvsDiskCache || !loadCache(cacheFile)) {
+            computeSets();
+            if (pvsDiskCache) {
+                saveCache(cacheFile);
+            }
+        }
+        cachedSets.put(mapIndex
+                , new CachedSets(transparentCells.clone(), visibleCells));
+    }
+
+    private static void computeSets() {
+        for (int col = 0; col < MAP_COLS; col++) {
+            colRuns[col] = getRuns(col, true);
+        }
+        for (int row = 0; row < MAP_ROWS; row++) {
+            rowRuns[row] = getRuns(row, false);
+        }
+        for (int row = 0; row < MAP_ROWS; row++) {
+            for (int col = 0; col < MAP_COLS; col++) {
+                if (!isTransparent(col, row)) {
+                    continue;
+                }
+                int from = (row * MAP_COLS + col) * MAP_ROWS;
+                visibleCells[from + row] |= 1L << col;
+                sweep(from, col, row, true, 1);
+                sweep(from, col, row, true, -1);
+                sweep(from, row, col, false, 1);
+                sweep(from, row, col, false, -1);
+            }
+        }
+        makeSymmetric();
+        expand();
+    }
+
+    // runs of transparent cells of the column (xMajor) or row
+    private static int[] getRuns(int line, boolean xMajor) {
+        int size = xMajor ? MAP_ROWS : MAP_COLS;
+        int[] runs = new int[size + 1];
+        int count = 0;
+        boolean inRun = false;
+        for (int i = 0; i <= size; i++) {
+            boolean transparent = i < size && (xMajor 
+                    ? isTransparent(line, i) : isTransparent(i, line));
+
+            if (transparent != inRun) {
+                runs[count++] = i;
+                inRun = transparent;
+            }
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    // intervals where the lines cross the current and the next line of the
+    // sweep (at most one per run of transparent cells)
+    private static double[] intervalMins = new double[MAP_ROWS];
+    private static double[] intervalMaxs = new double[MAP_ROWS];
+    private static double[] nextMins = new double[MAP_ROWS];
+    private static double[] nextMaxs = new double[MAP_ROWS];
+
+    // marks the cells that the lines leaving the cell (major, minor) in
+    // the direction can reach, major = col and minor = row if xMajor,
+    // otherwise the opposite. step = 1 or -1.
+    private static void sweep(int from
+                , int major, int minor, boolean xMajor, int step) {
+
+        int[][] runs = xMajor ? colRuns : rowRuns;
+        int lines = xMajor ? MAP_COLS : MAP_ROWS;
+        for (int s = 0; s < SLOPE_RANGES; s++) {
+            double slope1 = -1 + 2.0 * s / SLOPE_RANGES;
+            double slope2 = -1 + 2.0 * (s + 1) / SLOPE_RANGES;
+            double down = Math.min(0, slope1);
+            double up = Math.max(0, slope2);
+
+            // where the lines from anywhere in the cell leave it (the 
+            // neighbor cells of the same line are not checked)
+            intervalMins[0] = minor + down;
+            intervalMaxs[0] = minor + 1 + up;
+            int intervals = 1;
+            mark(from, major, intervalMins[0], intervalMaxs[0], xMajor);
+
+            for (int m = major + step; m >= 0 && m < lines; m += step) {
+                int nextIntervals = 0;
+                int[] lineRuns = runs[m];
+                for (int i = 0; i < intervals; i++) {
+                    mark(from, m, intervalMins[i] + down
+                                    , intervalMaxs[i] + up, xMajor);
+                }
+                // the runs and the intervals are sorted, so the next 
+                // intervals are sorted too
+                for (int r = 0; r < lineRuns.length; r += 2) {
+                    int runStart = lineRuns[r];
+                    int runEnd = lineRuns[r + 1];
+                    for (int i = 0; i < intervals; i++) {
+                        double enterMin = Math.max(intervalMins[i], runStart);
+                        double enterMax = Math.min(intervalMaxs[i], runEnd);
+                        if (enterMin >= enterMax) {
+                            continue;
+                        }
+                        double leaveMin 
+                                = Math.max(enterMin + slope1, runStart);
+
+                        double leaveMax 
+                                = Math.min(enterMax + slope2, runEnd);
+
+                        if (leaveMin >= leaveMax) {
+                            continue;
+                        }
+                        // overlaps the previous interval of the run
+                        if (nextIntervals > 0 
+                                && leaveMin <= nextMaxs[nextIntervals - 1]) {
+
+                            nextMaxs[nextIntervals - 1] = Math.max(
+                                    nextMaxs[nextIntervals - 1], leaveMax);
+                        }
+                        else {
+                            nextMins[nextIntervals] = leaveMin;
+                            nextMaxs[nextIntervals] = leaveMax;
+                            nextIntervals++;
+                        }
+                    }
+                }
+                // all lines hit a wall
+                if (nextIntervals == 0) {
+                    break;
+                }
+                double[] tmp = intervalMins;
+                intervalMins = nextMins;
+                nextMins = tmp;
+                tmp = intervalMaxs;
+                intervalMaxs = nextMaxs;
+                nextMaxs = tmp;
+                intervals = nextIntervals;
+            }
+        }
+    }
+
+    // marks the cells of the line (col if xMajor, otherwise row) between
+    // min and max
+    private static void mark(int from
+                    , int line, double min, double max, boolean xMajor) {
+
+        int size = xMajor ? MAP_ROWS : MAP_COLS;
+        int first = Math.max(0, (int) Math.floor(min));
+        int last = Math.min(size - 1, (int) Math.ceil(max) - 1);
+        if (first > last) {
+            return;
+        }
+        if (xMajor) {
+            for (int row = first; row <= last; row++) {
+                visibleCells[from + row] |= 1L << line;
+            }
+        }
+        else {
+            long bits = (-1L >>> (63 - last)) & (-1L << first);
+            visibleCells[from + line] |= bits;
+        }
+    }
+
+    // if b is visible from a, then a is visible from b
+    private static void makeSymmetric() {
+        for (int from = 0; from < CELLS; from++) {
+            int fromCol = from % MAP_COLS;
+            int fromRow = from / MAP_COLS;
+            for (int row = 0; row < MAP_ROWS; row++) {
+                long bits = visibleCells[from * MAP_ROWS + row];
+                while (bits != 0) {
+                    int col = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int to = row * MAP_COLS + col;
+                    visibleCells[to * MAP_ROWS + fromRow] |= 1L << fromCol;
+                }
+            }
+        }
+    }
+
+    // adds the 8 neighbors of each visible cell
+    private static void expand() {
+        for (int from = 0; from < CELLS; from++) {
+            int offset = from * MAP_ROWS;
+            for (int row = 0; row < MAP_ROWS; row++) {
+                long bits = visibleCells[offset + row];
+                tmpRows[row] = bits | (bits << 1) | (bits >>> 1);
+            }
+            for (int row = 0; row < MAP_ROWS; row++) {
+                long bits = tmpRows[row];
+                if (row > 0) bits |= tmpRows[row - 1];
+                if (row < MAP_ROWS - 1) bits |= tmpRows[row + 1];
+                visibleCells[offset + row] = bits;
+            }
+        }
+    }
+
+    // --- disk cache ---
+
+    private static boolean loadCache(File cacheFile) {
+        if (!cacheFile.exists()) {
+            return false;
+        }
+        try (DataInputStream dis = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(
+                                    new FileInputStream(cacheFile))))) {
+
+            if (dis.readInt() != CACHE_FILE_ID) {
+                return false;
+            }
+            // computed for different walls
+            for (int row = 0; row < MAP_ROWS; row++) {
+                if (dis.readLong() != transparentCells[row]) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < visibleCells.length; i++) {
+                visibleCells[i] = dis.readLong();
+            }
+            return true;
+        } catch (IOException ex) {
+            String logClassName = PVS.class.getName();
+            Logger.getLogger(logClassName).log(Level.WARNING, null, ex);
+            return false;
+        }
+    }
+
+    private static void saveCache(File cacheFile) {
+        try (DataOutputStream dos = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(
+                                    new FileOutputStream(cacheFile))))) {
+
+            dos.writeInt(CACHE_FILE_ID);
+            for (int row = 0; row < MAP_ROWS; row++) {
+                dos.writeLong(transparentCells[row]);
+            }
+            for (int i = 0; i < visibleCells.length; i++) {
+                dos.writeLong(visibleCells[i]);
+            }
+        } catch (IOException ex) {
+            String logClassName = PVS.class.getName();
+            Logger.getLogger(logClassName).log(Level.WARNING, null, ex);
+        }
+    }
+
+}
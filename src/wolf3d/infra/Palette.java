@@ -1,5 +1,6 @@
 package wolf3d.infra;
 
+import java.awt.Color;
 import java.awt.image.IndexColorModel;
 
 /**
@@ -7,6 +8,9 @@ import java.awt.image.IndexColorModel;
  * 
  * Contains the Wolfeinstein 3D VGA 256 indexed color palette table.
  * 
+ * The textures, sprites, pics and the 3D view are kept as palette 
+ * indices (1 byte per pixel) and converted to RGB only when presented.
+ * 
  * @author Leonardo Ono (ono.leo80@gmail.com)
  */
 public class Palette {
@@ -61,5 +65,42 @@ public class Palette {
     
     public static final IndexColorModel INDEX_COLOR_MODEL 
         = new IndexColorModel(8, 256, PALETTE_RED, PALETTE_GREEN, PALETTE_BLUE);
+    
+    // the sprites don't use the last color (0x980088), so the 
+    // index 255 marks their transparent texels
+    public static final int TRANSPARENT_COLOR_INDEX = 255;
+    
+    public static final IndexColorModel SPRITE_INDEX_COLOR_MODEL 
+        = new IndexColorModel(8, 256, PALETTE_RED, PALETTE_GREEN
+                                    , PALETTE_BLUE, TRANSPARENT_COLOR_INDEX);
+    
+    // palette index -> 0xAARRGGBB (opaque) used to present the 3D view
+    public static final int[] PALETTE_ARGB = new int[256];
+    
+    static {
+        for (int i = 0; i < PALETTE_ARGB.length; i++) {
+            PALETTE_ARGB[i] = 0xff000000 
+                    | ((PALETTE_RED[i] & 0xff) << 16) 
+                        | ((PALETTE_GREEN[i] & 0xff) << 8) 
+                            | (PALETTE_BLUE[i] & 0xff);
+        }
+    }
+    
+    // palette index of the closest color
+    public static int getNearestColorIndex(Color color) {
+        int nearestIndex = 0;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < PALETTE_ARGB.length; i++) {
+            int dr = ((PALETTE_ARGB[i] >> 16) & 0xff) - color.getRed();
+            int dg = ((PALETTE_ARGB[i] >> 8) & 0xff) - color.getGreen();
+            int db = (PALETTE_ARGB[i] & 0xff) - color.getBlue();
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < nearestDistance) {
+                nearestIndex = i;
+                nearestDistance = distance;
+            }
+        }
+        return nearestIndex;
+    }
             
 }
@@ -0,0 +1,113 @@
+package wolf3d.infra;
+
+import static wolf3d.infra.Palette.PALETTE_ARGB;
+
+/**
+ * PaletteEffects class.
+ *
+ * Full screen effects (scene fade to black and the damage / pickup flash)
+ * implemented as 256 entries palette remap tables (palette index ->
+ * 0xAARRGGBB) applied when the indexed pixels are converted to RGB, like
+ * the original game changing the VGA palette. So the effects cost nothing
+ * per pixel, instead of blending a full screen translucent rectangle.
+ *
+ * The fade tables are precomputed. The flash tables are computed on the
+ * first use of each flash color (the alpha is quantized in FLASH_LEVELS).
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class PaletteEffects {
+
+    private static final int FADE_LEVELS = SceneManager.FADE_SIZE;
+    private static final int FLASH_LEVELS = 32;
+    private static final int MAX_FLASH_COLORS = 16;
+
+    // [level] 0 = black ~ FADE_LEVELS = original palette
+    private static final int[][] FADE_TABLES = new int[FADE_LEVELS + 1][];
+
+    // [flash color][level] level 0 = original palette
+    private static final int[] flashColors = new int[MAX_FLASH_COLORS];
+    private static final int[][][] flashTables
+                                = new int[MAX_FLASH_COLORS][][];
+
+    private static int flashColorsCount;
+
+    // fade and flash at the same time
+    private static final int[] combinedTable = new int[256];
+
+    static {
+        for (int level = 0; level <= FADE_LEVELS; level++) {
+            int alpha = (int) (255 * (1.0 - (level / (double) FADE_LEVELS)));
+            FADE_TABLES[level] = new int[256];
+            blend(PALETTE_ARGB, FADE_TABLES[level], 0x000000, alpha);
+        }
+    }
+
+    // same as drawing the color with alpha over each color of the source
+    // (rgb = 0xRRGGBB, alpha = 0~255)
+    private static void blend(int[] source, int[] target, int rgb, int alpha) {
+        int r = (rgb >> 16) & 0xff;
+        int g = (rgb >> 8) & 0xff;
+        int b = rgb & 0xff;
+        for (int i = 0; i < 256; i++) {
+            int sr = (source[i] >> 16) & 0xff;
+            int sg = (source[i] >> 8) & 0xff;
+            int sb = source[i] & 0xff;
+            sr += (r - sr) * alpha / 255;
+            sg += (g - sg) * alpha / 255;
+            sb += (b - sb) * alpha / 255;
+            target[i] = 0xff000000 | (sr << 16) | (sg << 8) | sb;
+        }
+    }
+
+    private static int[][] getFlashTables(int rgb) {
+        for (int c = 0; c < flashColorsCount; c++) {
+            if (flashColors[c] == rgb) {
+                return flashTables[c];
+            }
+        }
+        int[][] tables = new int[FLASH_LEVELS + 1][256];
+        for (int level = 0; level <= FLASH_LEVELS; level++) {
+            int alpha = 255 * level / FLASH_LEVELS;
+            blend(PALETTE_ARGB, tables[level], rgb, alpha);
+        }
+        // too many different colors, replace the last one
+        if (flashColorsCount == MAX_FLASH_COLORS) {
+            flashColorsCount--;
+        }
+        flashColors[flashColorsCount] = rgb;
+        flashTables[flashColorsCount] = tables;
+        flashColorsCount++;
+        return tables;
+    }
+
+    // remap table of the effects of the frame snapshot
+    public static int[] getTable(FrameSnapshot snapshot) {
+        int[] table = PALETTE_ARGB;
+
+        double flashAlpha = snapshot.getFlashScreenAlpha();
+        int flashLevel = (int) (FLASH_LEVELS * Math.min(1.0, flashAlpha));
+        if (flashLevel > 0) {
+            int red = (int) (255 * snapshot.getFlashScreenRed());
+            int green = (int) (255 * snapshot.getFlashScreenGreen());
+            int blue = (int) (255 * snapshot.getFlashScreenBlue());
+            table = getFlashTables(
+                        (red << 16) | (green << 8) | blue)[flashLevel];
+        }
+
+        if (snapshot.isFading() && snapshot.getFadeValue() < FADE_LEVELS) {
+            int fadeLevel = Math.max(0, snapshot.getFadeValue());
+            if (table == PALETTE_ARGB) {
+                return FADE_TABLES[fadeLevel];
+            }
+            // the fade is drawn over the flash
+            int alpha = (int) (255 
+                        * (1.0 - (fadeLevel / (double) FADE_LEVELS)));
+            
+            blend(table, combinedTable, 0x000000, alpha);
+            return combinedTable;
+        }
+        return table;
+    }
+
+}
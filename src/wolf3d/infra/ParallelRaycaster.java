@@ -0,0 +1,137 @@
+package wolf3d.infra;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import wolf3d.infra.GameMap.RaycastResult;
+
+/**
+ * ParallelRaycaster class.
+ *
+ * Casts the rays of the 3D view splitting the screen columns across
+ * the threads of a ForkJoinPool.
+ *
+ * Each column has its own RaycastResult and each chunk of columns collects
+ * the cells visited by its rays in its own VisibleCells, so no shared
+ * state is written during the raycasting. The visited cells are merged
+ * afterwards in column order, so the result is the same regardless of
+ * the threads scheduling, and the renderer gathers the objs from them.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class ParallelRaycaster {
+
+    // more chunks than threads to balance columns with different costs
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final RaycastChunk[] chunks;
+    private final RaycastAll raycastAll = new RaycastAll();
+
+    private double srcX;
+    private double srcY;
+    private double dirX;
+    private double dirY;
+    private double maxRayDistance;
+    private double[] rayDirX;
+    private double[] rayDirY;
+    private RaycastResult[] results;
+    private double[] openRates;
+
+    public ParallelRaycaster(int parallelism, int columns) {
+        this.parallelism = parallelism;
+        pool = new ForkJoinPool(parallelism);
+        int chunksCount = Math.min(columns, parallelism * CHUNKS_PER_THREAD);
+        chunks = new RaycastChunk[chunksCount];
+        for (int i = 0; i < chunksCount; i++) {
+            int startColumn = columns * i / chunksCount;
+            int endColumn = columns * (i + 1) / chunksCount;
+            chunks[i] = new RaycastChunk(startColumn, endColumn);
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getColumns() {
+        return chunks[chunks.length - 1].endColumn;
+    }
+
+    // dirX, dirY: view direction
+    // rayDirX, rayDirY: direction of each screen column in view space
+    //                   (see ProjectionTables)
+    // results: one RaycastResult for each screen column
+    // visibleCells: receives the cells visited by all rays
+    // openRates: door open rates (see GameMap.performRaycastDDA())
+    public void castRays(double srcX, double srcY, double dirX, double dirY
+            , double[] rayDirX, double[] rayDirY, RaycastResult[] results
+                        , double maxRayDistance, VisibleCells visibleCells
+                                                    , double[] openRates) {
+
+        this.srcX = srcX;
+        this.srcY = srcY;
+        this.dirX = dirX;
+        this.dirY = dirY;
+        this.rayDirX = rayDirX;
+        this.rayDirY = rayDirY;
+        this.results = results;
+        this.maxRayDistance = maxRayDistance;
+        this.openRates = openRates;
+
+        raycastAll.reinitialize();
+        pool.invoke(raycastAll);
+
+        // merge in column order
+        for (RaycastChunk chunk : chunks) {
+            visibleCells.addAll(chunk.visibleCells);
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private class RaycastAll extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (RaycastChunk chunk : chunks) {
+                chunk.reinitialize();
+            }
+            invokeAll(chunks);
+        }
+
+    }
+
+    private class RaycastChunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int startColumn;
+        private final int endColumn;
+        private final VisibleCells visibleCells = new VisibleCells();
+
+        public RaycastChunk(int startColumn, int endColumn) {
+            this.startColumn = startColumn;
+            this.endColumn = endColumn;
+        }
+
+        @Override
+        protected void compute() {
+            visibleCells.clear();
+            for (int c = startColumn; c < endColumn; c++) {
+                double rx = rayDirX[c];
+                double ry = rayDirY[c];
+                GameMap.performRaycastDDA(srcX, srcY
+                        , dirX * rx - dirY * ry, dirY * rx + dirX * ry
+                            , results[c], maxRayDistance
+                                            , visibleCells, openRates);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,154 @@
+package wolf3d.infra;
+
+import java.awt.Graphics2D;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import wolf3d.asset.loader.VGAGRAPHLoader.VGAGRAPHFont;
+
+/**
+ * PerfOverlay class.
+ *
+ * Measures the time spent in each phase of the frame (the fixed update
+ * subsystems, the 3D view passes, the HUD and the final blit) and draws
+ * the rolling statistics of the last frames over the screen.
+ *
+ * The phases are accumulated until the end of the frame, so a frame that
+ * runs several ticks shows the sum of all its ticks. The fixed update may
+ * run in the simulation thread, so the accumulators are atomic.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class PerfOverlay {
+
+    public static enum Phase {
+        PLAYER("PLAYER"), ENEMIES("ENEMIES"), DOORS("DOORS")
+        , SECRET_DOORS("SECRET DOORS"), WEAPONS("WEAPONS")
+        , FLOOR_AND_CEILING("FLOOR/CEILING"), WALLS("WALLS"), OBJS("OBJS")
+        , PALETTE("PALETTE"), HUD("HUD"), BLIT("SCALE/BLIT");
+
+        private final String label;
+
+        private Phase(String label) {
+            this.label = label;
+        }
+
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    // number of last frames used to compute the statistics
+    private static final int FRAMES_SIZE = 120;
+
+    private static final int LINE_HEIGHT = 9;
+
+    // time accumulated in the current frame for each phase (nanoseconds)
+    private static final AtomicLongArray phaseTimes
+                                = new AtomicLongArray(PHASES.length);
+
+    private static final AtomicInteger ticks = new AtomicInteger();
+
+    // --- last frames, only accessed by the render thread ---
+
+    private static final long[][] phaseHistory
+                                = new long[PHASES.length][FRAMES_SIZE];
+
+    private static final long[] frameTimes = new long[FRAMES_SIZE];
+    private static final long[] sortedFrameTimes = new long[FRAMES_SIZE];
+    private static final int[] ticksHistory = new int[FRAMES_SIZE];
+    private static int framesCount;
+    private static int framesIndex;
+    private static long lastFrameTime;
+
+    private static VGAGRAPHFont fontYellow;
+    private static VGAGRAPHFont fontBlack;
+
+    // start time of a phase
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static void end(Phase phase, long startTime) {
+        phaseTimes.addAndGet(phase.ordinal(), System.nanoTime() - startTime);
+    }
+
+    // one fixed update was executed
+    public static void tick() {
+        ticks.incrementAndGet();
+    }
+
+    // called by the render thread after the frame was presented
+    public static void endFrame() {
+        long now = System.nanoTime();
+        if (lastFrameTime != 0) {
+            for (int p = 0; p < PHASES.length; p++) {
+                phaseHistory[p][framesIndex] = phaseTimes.getAndSet(p, 0);
+            }
+            ticksHistory[framesIndex] = ticks.getAndSet(0);
+            frameTimes[framesIndex] = now - lastFrameTime;
+            framesIndex = (framesIndex + 1) % FRAMES_SIZE;
+            framesCount = Math.min(framesCount + 1, FRAMES_SIZE);
+        }
+        lastFrameTime = now;
+    }
+
+    // g = logical 320x200 graphics
+    public static void draw(Graphics2D g) {
+        if (!Settings.showPerfOverlay || framesCount == 0) {
+            return;
+        }
+        if (fontYellow == null) {
+            fontYellow = Resource.getFont("SMALL_YELLOW");
+            fontBlack = Resource.getFont("SMALL_BLACK");
+        }
+
+        // frame time min / avg / p99
+        System.arraycopy(frameTimes, 0, sortedFrameTimes, 0, framesCount);
+        Arrays.sort(sortedFrameTimes, 0, framesCount);
+        long frameTimesSum = 0;
+        int ticksSum = 0;
+        for (int i = 0; i < framesCount; i++) {
+            frameTimesSum += frameTimes[i];
+            ticksSum += ticksHistory[i];
+        }
+        double averageMs = frameTimesSum * 0.000001 / framesCount;
+        int lastIndex = (framesIndex + FRAMES_SIZE - 1) % FRAMES_SIZE;
+
+        int y = 12;
+        drawText(g, String.format("FPS %.1f  TICKS/FRAME %.2f (%d)"
+                , 1000 / averageMs, ticksSum / (double) framesCount
+                    , ticksHistory[lastIndex]), 2, y);
+
+        y += LINE_HEIGHT;
+        drawText(g, String.format("FRAME MS MIN %.2f AVG %.2f P99 %.2f"
+                , sortedFrameTimes[0] * 0.000001, averageMs
+                    , sortedFrameTimes[(int) (0.99 * (framesCount - 1))]
+                                                    * 0.000001), 2, y);
+
+        y += LINE_HEIGHT + 2;
+        drawText(g, "PHASE", 2, y);
+        drawText(g, "AVG MS", 80, y);
+        drawText(g, "MAX MS", 122, y);
+        for (Phase phase : PHASES) {
+            long[] history = phaseHistory[phase.ordinal()];
+            long sum = 0;
+            long max = 0;
+            for (int i = 0; i < framesCount; i++) {
+                sum += history[i];
+                max = Math.max(max, history[i]);
+            }
+            y += LINE_HEIGHT;
+            drawText(g, phase.label, 2, y);
+            drawText(g, String.format(
+                    "%.3f", sum * 0.000001 / framesCount), 80, y);
+
+            drawText(g, String.format("%.3f", max * 0.000001), 122, y);
+        }
+    }
+
+    private static void drawText(Graphics2D g, String text, int x, int y) {
+        fontBlack.drawString(g, text, x + 1, y + 1);
+        fontYellow.drawString(g, text, x, y);
+    }
+
+}
@@ -1,10 +1,7 @@
 package wolf3d.infra;
 
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import wolf3d.infra.GameMap.RaycastResult;
 import wolf3d.infra.Objs.CollectableObj;
 import wolf3d.infra.Objs.EnemyObj;
@@ -58,6 +55,9 @@ public class Player {
     private static final double SPEED = 0.4 * 0x3000 / (double) 0xffff;
     private static final double ROT_SPEED = 2.0;
     
+    // seconds per fixed update
+    private static final double UPDATE_DELTA = TIME_PER_UPDATE * 0.000000001;
+    
     private static final Color DEATH_COLOR = Util.getColor("0x8a0000ff");
         
     private static final RaycastResult raycastResult 
@@ -141,35 +141,11 @@ public class Player {
         Player.playerTriggeredEndGame = false;
     }
 
-    public static void update(double delta) {
-        switch (playerState) {
-            case PLAYING -> updatePlaying(delta);
-            case DYING_ROTATING -> updateDyingRotating(delta);
-            case GAME_CLEARED_ROTATE_TO_TARGET_TILE -> {
-                gameClearedRotateToTargetTileUpdate(delta);
-            }
-            case GAME_CLEARED_ROTATE_TO_END_PLAYER -> {
-                gameClearedRotateToEndPlayerUpdate(delta);
-            }
-        }
-    }
-    
-    private static void updatePlaying(double delta) {
-        boolean strafeActivated = Input.isKeyPressed(KEY_PLAYER_STRAFE);
-        
-        if (!strafeActivated && Input.isKeyPressed(KEY_PLAYER_LEFT)) {
-            playerAngle -= ROT_SPEED * delta;
-        }
-        else if (!strafeActivated && Input.isKeyPressed(KEY_PLAYER_RIGHT)) {
-            playerAngle += ROT_SPEED * delta;
-        }
-    }
-
     // rotate to the direction of the enemy that killed you
-    private static void updateDyingRotating(double delta) {
+    private static void dyingRotatingFixedUpdate() {
         double ex = killerEnemy.getEnemyX();
         double ey = killerEnemy.getEnemyY();
-        if (rotateTowards(ex, ey, delta)) {
+        if (rotateTowards(ex, ey, UPDATE_DELTA)) {
             FizzleFade.fadeIn(DEATH_COLOR);
             playerState = PlayerState.DYING_FIZZLE_FADE_IN;
         }
@@ -200,10 +176,17 @@ public class Player {
     public static void fixedUpdate() {
         switch (playerState) {
             case PLAYING -> playingFixedUpdate();
+            case DYING_ROTATING -> dyingRotatingFixedUpdate();
             case DYING_FIZZLE_FADE_IN -> dyingFizzleFadeInFixedUpdate();
             case TRY_NEXT_LIFE -> tryNextLifeFixedUpdate();
             case DYING_FIZZLE_FADE_OUT -> dyingFizzleFadeOutFixedUpdate();
+            case GAME_CLEARED_ROTATE_TO_TARGET_TILE -> {
+                gameClearedRotateToTargetTileFixedUpdate();
+            }
             case GAME_CLEARED_WALK -> gameClearedWalkFixedUpdate();
+            case GAME_CLEARED_ROTATE_TO_END_PLAYER -> {
+                gameClearedRotateToEndPlayerFixedUpdate();
+            }
         }
     }
     
@@ -234,10 +217,10 @@ public class Player {
         }
     }
     
-    private static void gameClearedRotateToTargetTileUpdate(double delta) {
+    private static void gameClearedRotateToTargetTileFixedUpdate() {
         double targetTileX = 34.5;
         double targetTileY = 2.5;
-        if (rotateTowards(targetTileX, targetTileY, delta)) {
+        if (rotateTowards(targetTileX, targetTileY, UPDATE_DELTA)) {
             playerState = PlayerState.GAME_CLEARED_WALK;
         }        
     }
@@ -262,17 +245,88 @@ public class Player {
         
         double endPlayerX = 34.5;
         double endPlayerY = 7.5;
-        rotateTowards(endPlayerX, endPlayerY, TIME_PER_UPDATE * 0.000000001);
+        rotateTowards(endPlayerX, endPlayerY, UPDATE_DELTA);
     }
     
-    private static void gameClearedRotateToEndPlayerUpdate(double delta) {
+    private static void gameClearedRotateToEndPlayerFixedUpdate() {
         double endPlayerX = 34.5;
         double endPlayerY = 7.5;
-        if (rotateTowards(endPlayerX, endPlayerY, delta)) {
+        if (rotateTowards(endPlayerX, endPlayerY, UPDATE_DELTA)) {
             playerState = PlayerState.GAME_CLEARED_FINISHED;
         }        
     }
     
+    // --- closest enemy in sight ---
+    
+    // the weapons hit the closest alive enemy whose sprite is drawn over 
+    // the sight (SIGHT_WIDTH canvas pixels in the middle of the 3D view) 
+    // and isn't completely behind the walls. Only computed when the player
+    // attacks.
+    private static final int SIGHT_WIDTH = 32;
+    
+    // half width of the sight per unit of distance
+    private static final double SIGHT_SLOPE 
+                = Math.tan(Stage.FOV / 2) * SIGHT_WIDTH / CANVAS_WIDTH;
+    
+    // horizontal offsets of the sprite (1 cell wide, facing the player) 
+    // checked against the walls
+    private static final double[] SPRITE_OFFSETS 
+                                    = { 0.0, -0.25, 0.25, -0.45, 0.45 };
+    
+    private static final RaycastResult sightRaycastResult 
+                                            = new GameMap.RaycastResult();
+    
+    private static EnemyObj getClosestEnemyInSight() {
+        double dirX = Math.cos(playerAngle);
+        double dirY = Math.sin(playerAngle);
+        EnemyObj closestEnemy = null;
+        double closestEnemyDistance = 0;
+        List<EnemyObj> enemies = Enemies.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            EnemyObj enemy = enemies.get(i);
+            if (!enemy.isDrawable() || enemy.getEnemyState() == DEAD) {
+                continue;
+            }
+            double distX = enemy.getEnemyX() - playerX;
+            double distY = enemy.getEnemyY() - playerY;
+            double distHor = dirX * distX + dirY * distY;
+            double distVer = -dirY * distX + dirX * distY;
+            if (distHor <= PLAYER_RADIUS || (closestEnemy != null 
+                                && distHor >= closestEnemyDistance)) {
+                
+                continue;
+            }
+            if (Math.abs(distVer) < 0.5 + distHor * SIGHT_SLOPE
+                    && isSpriteVisible(dirX, dirY, distHor, distVer)) {
+                
+                closestEnemy = enemy;
+                closestEnemyDistance = distHor;
+            }
+        }
+        return closestEnemy;
+    }
+    
+    // distHor, distVer = sprite location in the player view
+    private static boolean isSpriteVisible(
+            double dirX, double dirY, double distHor, double distVer) {
+        
+        for (double offset : SPRITE_OFFSETS) {
+            double ver = distVer + offset;
+            double distance = Math.hypot(distHor, ver);
+            double dx = (dirX * distHor - dirY * ver) / distance;
+            double dy = (dirY * distHor + dirX * ver) / distance;
+            GameMap.performRaycastDDA(playerX, playerY, dx, dy
+                            , sightRaycastResult, distance, null, null);
+            
+            if (!sightRaycastResult.isIntersecting() 
+                    || sightRaycastResult.getDistance() > distance) {
+                
+                return true;
+            }
+        }
+        return false;
+    }
+    
     private static void playingFixedUpdate() {
         // return to game options
         if (Input.isKeyPressed(KEY_CANCEL)) {
@@ -296,6 +350,13 @@ public class Player {
         
         boolean strafeActivated = Input.isKeyPressed(KEY_PLAYER_STRAFE);
         
+        if (!strafeActivated && Input.isKeyPressed(KEY_PLAYER_LEFT)) {
+            playerAngle -= ROT_SPEED * UPDATE_DELTA;
+        }
+        else if (!strafeActivated && Input.isKeyPressed(KEY_PLAYER_RIGHT)) {
+            playerAngle += ROT_SPEED * UPDATE_DELTA;
+        }
+        
         if (strafeActivated && Input.isKeyPressed(KEY_PLAYER_LEFT)) {
             double strafe = -Math.PI * 0.5;
             movePlayer(SPEED, strafe);
@@ -322,8 +383,9 @@ public class Player {
         
         if ((knifePistolAtk || machineGatlingAtk) && Weapons.canAttack()) {
             Weapon currentWeapon = Weapons.getCurrentPlayerWeapon();
-            if (Wolf3DGame.getClosestEnemyInSight() != null) {
-                Enemies.tryToHit(Wolf3DGame.getClosestEnemyInSight()
+            EnemyObj closestEnemyInSight = getClosestEnemyInSight();
+            if (closestEnemyInSight != null) {
+                Enemies.tryToHit(closestEnemyInSight
                                         , currentWeapon.getMinHitDistance());
             }
             Audio.playSound(currentWeapon.getSoundId());
@@ -500,31 +562,15 @@ public class Player {
         }
     }
 
-    private static final Set<Integer> visitedRooms = new HashSet<>();
-    private static final List<Integer> neighborRooms = new ArrayList<>();
-    
     private static void propagateGunFiringSoundThroughoutRooms() {
         int currentRoomId = getCurrentRoomId();
-        visitedRooms.clear();
-        neighborRooms.clear();
-        neighborRooms.add(currentRoomId);
-        while (!neighborRooms.isEmpty()) {
-            currentRoomId = neighborRooms.remove(0);
-            visitedRooms.add(currentRoomId);
-            for (int i = 0; i < 256; i++) {
-                if (i != currentRoomId && !visitedRooms.contains(i) 
-                            && GameMap.isRoomConnected(currentRoomId, i)
-                                            && !neighborRooms.contains(i)) {
-
-                    neighborRooms.add(i);
-                } 
-            }
-        }
 
         // if non attacking enemy hears the propagated gun fire sound 
         // in his rooms, then start chasing player.
-        for (EnemyObj enemy : Enemies.getEnemies()) {
-            if (visitedRooms.contains(enemy.getRoomId())) {
+        List<EnemyObj> enemies = Enemies.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            EnemyObj enemy = enemies.get(i);
+            if (GameMap.isRoomReachable(currentRoomId, enemy.getRoomId())) {
                 enemy.chaseReact();
             }
         }
@@ -629,7 +675,7 @@ public class Player {
                 damage = (int) (100 / (dist * 0.5));
             }
             else {
-                if (Math.random() < 0.20) {
+                if (Util.random() < 0.20) {
                     return;
                 }
                 if (dist < 0) dist = 1;
@@ -638,7 +684,7 @@ public class Player {
         } 
         else {
             // common enemy
-            if (Math.random() < 0.20) {
+            if (Util.random() < 0.20) {
                 return;
             }
         }
@@ -0,0 +1,97 @@
+package wolf3d.infra;
+
+/**
+ * ProjectionTables class.
+ *
+ * Per screen column values of the 3D view projection, so that the
+ * raycasting and the wall / sprite drawing loops don't need to call
+ * any trigonometric function per column.
+ *
+ * The tables are rebuilt only when the field of view or the number of
+ * columns (internal render resolution) changes.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class ProjectionTables {
+
+    private double fov;
+    private int columns;
+    private double planeDistance;
+
+    // angle of each column relative to the view direction
+    private double[] angles = new double[0];
+
+    // cos(angle): converts euclidean distance to perpendicular distance
+    private double[] cosCorrection = new double[0];
+
+    // ray direction of each column in view space (x = forward)
+    private double[] rayDirX = new double[0];
+    private double[] rayDirY = new double[0];
+
+    // half wall height = heightPerDistance[column] / euclidean distance
+    private double[] heightPerDistance = new double[0];
+
+    // returns true if the tables were rebuilt
+    public boolean update(double fov, int columns) {
+        if (fov == this.fov && columns == this.columns) {
+            return false;
+        }
+        this.fov = fov;
+        this.columns = columns;
+        planeDistance = (columns * 0.5) / Math.tan(fov * 0.5);
+        angles = new double[columns];
+        cosCorrection = new double[columns];
+        rayDirX = new double[columns];
+        rayDirY = new double[columns];
+        heightPerDistance = new double[columns];
+        for (int c = 0; c < columns; c++) {
+            double op = c - columns / 2;
+            angles[c] = Math.atan(op / planeDistance);
+        }
+
+        // workaround: fix missing vertical wall column at center of screen
+        //             when this forms exactly 45 degrees angle.
+        angles[columns / 2] += 0.000001;
+
+        for (int c = 0; c < columns; c++) {
+            cosCorrection[c] = Math.cos(angles[c]);
+            rayDirX[c] = Math.cos(angles[c]);
+            rayDirY[c] = Math.sin(angles[c]);
+            heightPerDistance[c] = planeDistance * 0.5 / cosCorrection[c];
+        }
+        return true;
+    }
+
+    public double getFov() {
+        return fov;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public double getPlaneDistance() {
+        return planeDistance;
+    }
+
+    public double[] getAngles() {
+        return angles;
+    }
+
+    public double[] getCosCorrection() {
+        return cosCorrection;
+    }
+
+    public double[] getRayDirX() {
+        return rayDirX;
+    }
+
+    public double[] getRayDirY() {
+        return rayDirY;
+    }
+
+    public double[] getHeightPerDistance() {
+        return heightPerDistance;
+    }
+
+}
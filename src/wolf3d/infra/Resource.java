@@ -17,6 +17,8 @@ import wolf3d.asset.loader.MAPLoader;
 import wolf3d.asset.loader.VGAGRAPHLoader;
 import wolf3d.asset.loader.VGAGRAPHLoader.VGAGRAPHFont;
 import wolf3d.asset.loader.VSWAPLoader;
+import wolf3d.asset.loader.VSWAPLoader.SpriteSpans;
+import wolf3d.infra.EngineEvents.ResourceLoadEvent;
 import wolf3d.infra.Objs.EndPlayerObj.EndPlayerState;
 import wolf3d.infra.Objs.EnemyObj.EnemyState;
 import static wolf3d.infra.Objs.EnemyObj.EnemyState.ATTACK_REACT;
@@ -73,27 +75,35 @@ public class Resource {
             int adlSoundEndIndex = getIntProperty("ADLIB_SOUND_END_INDEX");
             int musicStartIndex = getIntProperty("MUSIC_START_INDEX");
             int musicEndIndex = getIntProperty("MUSIC_END_INDEX");
+            ResourceLoadEvent event = beginResourceLoadEvent("AUDIOT");
             AUDIOTLoader.load(path, audioHeadRes, audioTRes
                                 , pcSpStartIndex, pcSpEndIndex
                                 , adlSoundStartIndex, adlSoundEndIndex
                                 , musicStartIndex, musicEndIndex);
+            event.commit();
             
             // load VSWAP (wall textures, sprites and digitized sounds)
+            event = beginResourceLoadEvent("VSWAP");
             String vswapRes = Resource.getProperty("VSWAP_RES");
             VSWAPLoader.load(path, vswapRes);
             
             fixDigitizedSoundsPriority();
+            event.commit();
             
             // load VGAGRAPH (PIC's)
+            event = beginResourceLoadEvent("VGAGRAPH");
             String vgaHeadRes = Resource.getProperty("VGA_HEAD_RES");
             String vgaDictRes = Resource.getProperty("VGA_DICT_RES");
             String vgaGraphRes = Resource.getProperty("VGA_GRAPH_RES");
             VGAGRAPHLoader.load(path, vgaHeadRes, vgaDictRes, vgaGraphRes);
+            event.commit();
             
             // load GAMEMAPS
+            event = beginResourceLoadEvent("GAMEMAPS");
             String mapHeadRes = Resource.getProperty("MAP_HEAD_RES");
             String gameMapsRes = Resource.getProperty("GAME_MAPS_RES");
             MAPLoader.load(path, mapHeadRes, gameMapsRes);
+            event.commit();
         } catch (Exception ex) {
             String logClassName = Resource.class.getName();
             Logger.getLogger(logClassName).log(Level.SEVERE, null, ex);
@@ -101,6 +111,13 @@ public class Resource {
         }        
     }
     
+    private static ResourceLoadEvent beginResourceLoadEvent(String stage) {
+        ResourceLoadEvent event = new ResourceLoadEvent();
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+    
     // fix digitized sounds priority using the same priority of adlib sounds.
     private static void fixDigitizedSoundsPriority() {
         for (Object digitizedSoundId : PROPERTIES.keySet()) {
@@ -175,14 +192,30 @@ public class Resource {
         return VSWAPLoader.getWallTexture(textureId + side);
     }
 
+    // palette indices stored column by column (index = column * 64 + row)
+    public static byte[] getWallTextureTexels(BufferedImage wallTexture) {
+        return VSWAPLoader.getWallTextureTexels(wallTexture);
+    }
+
     public static BufferedImage getSprite(int sprId) {
         return VSWAPLoader.getSprite(sprId);
     }
 
+    // opaque spans of each sprite column (palette indices)
+    public static SpriteSpans getSpriteSpans(BufferedImage sprite) {
+        return VSWAPLoader.getSpriteSpans(sprite);
+    }
+
     public static int[][] getMap(int mapIndex) {
         return MAPLoader.getMap(mapIndex);
     }
     
+    // approximated heap size in bytes of all the decoded assets
+    public static long getDecodedAssetsSize() {
+        return AUDIOTLoader.getDecodedSize() + VSWAPLoader.getDecodedSize()
+            + VGAGRAPHLoader.getDecodedSize() + MAPLoader.getDecodedSize();
+    }
+    
     public static VGAGRAPHFont getFont(String fontId) {
         return VGAGRAPHLoader.getFont(fontId);
     }
@@ -191,14 +224,14 @@ public class Resource {
     
     public static final class EnemyAnimation {
         
-        private List<Integer> stand;
-        private List<Integer> walk;
-        private List<Integer> dying;
-        private List<Integer> hit;
-        private List<Integer> dead;
-        private List<Integer> attack;
+        private int[] stand;
+        private int[] walk;
+        private int[] dying;
+        private int[] hit;
+        private int[] dead;
+        private int[] attack;
 
-        public List<Integer> getFrames(EnemyState state) {
+        public int[] getFrames(EnemyState state) {
             return switch(state) {
                 case STAND -> stand;
                 case ATTACK, ATTACK_REACT -> attack;
@@ -252,7 +285,8 @@ public class Resource {
         }
     }
     
-    private static List<Integer> getSpriteIndices(String value) {
+    // kept as int[] so the animations don't unbox the sprite indices
+    private static int[] getSpriteIndices(String value) {
         List<Integer> indicesList = new ArrayList<>();
         String[] indices = value.split(",");
         for (String indice : indices) {
@@ -269,7 +303,7 @@ public class Resource {
                 indicesList.add(index);
             }
         }
-        return indicesList;
+        return indicesList.stream().mapToInt(Integer::intValue).toArray();
     }
     
     public static EnemyAnimation getEnemyAnimationsFrames(EnemyType enemyType) {
@@ -280,10 +314,10 @@ public class Resource {
     
     public static final class EndPlayerAnimation {
         
-        private List<Integer> walk;
-        private List<Integer> celebrate;
+        private int[] walk;
+        private int[] celebrate;
 
-        public List<Integer> getFrames(EndPlayerState state) {
+        public int[] getFrames(EndPlayerState state) {
             return switch(state) {
                 case WALK -> walk;
                 case CELEBRATE -> celebrate;
@@ -0,0 +1,101 @@
+package wolf3d.infra;
+
+import java.util.Arrays;
+
+/**
+ * RoomGraph class.
+ *
+ * Rooms of the map (floor tile ids) connected by the open doors, used to
+ * propagate the sounds to the enemies. The adjacency of each room is a
+ * bitset (long[4] for the 256 possible rooms), and the set of rooms
+ * reachable from a room is computed on the first query and cached until
+ * a door connects or disconnects two rooms, so a gunshot is a bit test
+ * instead of a breadth first search.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class RoomGraph {
+
+    public static final int MAX_ROOMS = 256;
+
+    private static final int WORDS = MAX_ROOMS / 64;
+
+    // [room * WORDS + word]
+    private final long[] adjacency = new long[MAX_ROOMS * WORDS];
+    private final long[] reachable = new long[MAX_ROOMS * WORDS];
+    private final boolean[] reachableCached = new boolean[MAX_ROOMS];
+
+    private final int[] roomsQueue = new int[MAX_ROOMS];
+
+    public void clear() {
+        Arrays.fill(adjacency, 0);
+        Arrays.fill(reachableCached, false);
+    }
+
+    private static long bit(int room) {
+        return 1L << (room & 63);
+    }
+
+    public boolean isConnected(int r1, int r2) {
+        return (adjacency[r1 * WORDS + (r2 >> 6)] & bit(r2)) != 0;
+    }
+
+    public void connect(int r1, int r2) {
+        if (isConnected(r1, r2)) {
+            return;
+        }
+        adjacency[r1 * WORDS + (r2 >> 6)] |= bit(r2);
+        adjacency[r2 * WORDS + (r1 >> 6)] |= bit(r1);
+        Arrays.fill(reachableCached, false);
+    }
+
+    public void disconnect(int r1, int r2) {
+        if (!isConnected(r1, r2)) {
+            return;
+        }
+        adjacency[r1 * WORDS + (r2 >> 6)] &= ~bit(r2);
+        adjacency[r2 * WORDS + (r1 >> 6)] &= ~bit(r1);
+        Arrays.fill(reachableCached, false);
+    }
+
+    // true if a sound in room r1 reaches room r2 through the open doors
+    public boolean isReachable(int r1, int r2) {
+        if (!reachableCached[r1]) {
+            updateReachable(r1);
+        }
+        return (reachable[r1 * WORDS + (r2 >> 6)] & bit(r2)) != 0;
+    }
+
+    // breadth first search on the adjacency bitsets
+    private void updateReachable(int room) {
+        int offset = room * WORDS;
+        Arrays.fill(reachable, offset, offset + WORDS, 0);
+        reachable[offset + (room >> 6)] |= bit(room);
+        int queueStart = 0;
+        int queueEnd = 0;
+        roomsQueue[queueEnd++] = room;
+        while (queueStart < queueEnd) {
+            int adjacencyOffset = roomsQueue[queueStart++] * WORDS;
+            for (int w = 0; w < WORDS; w++) {
+                long newRooms = adjacency[adjacencyOffset + w]
+                                                & ~reachable[offset + w];
+
+                reachable[offset + w] |= newRooms;
+                while (newRooms != 0) {
+                    int r = (w << 6) + Long.numberOfTrailingZeros(newRooms);
+                    newRooms &= newRooms - 1;
+                    roomsQueue[queueEnd++] = r;
+                }
+            }
+        }
+        reachableCached[room] = true;
+
+        // all the rooms reachable from this room have the same set
+        for (int q = 1; q < queueEnd; q++) {
+            int r = roomsQueue[q];
+            System.arraycopy(reachable, offset, reachable, r * WORDS, WORDS);
+            reachableCached[r] = true;
+        }
+    }
+
+}
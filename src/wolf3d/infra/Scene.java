@@ -43,6 +43,24 @@ public abstract class Scene {
         // implement your code here
     }
     
+    // called by the simulation at the end of the ticks to add 
+    // the scene specific state needed to render the next frame
+    public void captureSnapshot(FrameSnapshot snapshot) {
+        // implement your code here
+    }
+    
+    // true if draw() reads only the FrameSnapshot (and the static map 
+    // data), so it can run concurrently with the simulation
+    public boolean isDrawnFromSnapshot() {
+        return false;
+    }
+    
+    // true if draw() already applied the fade of the frame, so the 
+    // SceneManager doesn't draw it again over the scene
+    public boolean isFadeDrawn() {
+        return false;
+    }
+    
     public void draw(Graphics2D g) {
         // implement your code here
     }
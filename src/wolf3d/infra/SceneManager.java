@@ -4,6 +4,8 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.util.HashMap;
 import java.util.Map;
+import wolf3d.infra.EngineEvents.FadeEvent;
+import wolf3d.infra.EngineEvents.SceneSwitchEvent;
 import static wolf3d.infra.Settings.*;
 
 /**
@@ -17,7 +19,7 @@ public class SceneManager {
     private static Scene currentScene;
     private static Scene nextScene;
 
-    private static final int FADE_SIZE = 40;
+    public static final int FADE_SIZE = 40;
     private static final Color[] ALPHAS = new Color[FADE_SIZE + 1];
     
     private static boolean fadeMusic;
@@ -25,6 +27,9 @@ public class SceneManager {
     private static int fadeStatus;
     private static int waitBetweenFade = 60;
     
+    // JFR event of the current fade phase
+    private static FadeEvent fadeEvent;
+    
     static {
         cacheAllAlphas();
     }
@@ -43,6 +48,14 @@ public class SceneManager {
         return currentScene;
     }
     
+    public static int getFadeValue() {
+        return fadeValue;
+    }
+    
+    public static boolean isFading() {
+        return fadeStatus != 0;
+    }
+    
     public static void addState(Scene state) {
         scenes.put(state.getName(), state);
     }
@@ -70,6 +83,21 @@ public class SceneManager {
         fadeValue = FADE_SIZE;
         SceneManager.waitBetweenFade = waitBetweenFade;
         SceneManager.fadeMusic = fadeMusic;
+        beginFadeEvent("FADE_OUT", currentScene);
+    }
+    
+    private static void beginFadeEvent(String phase, Scene scene) {
+        fadeEvent = new FadeEvent();
+        fadeEvent.phase = phase;
+        fadeEvent.scene = scene != null ? scene.getName() : null;
+        fadeEvent.begin();
+    }
+    
+    private static void commitFadeEvent() {
+        if (fadeEvent != null) {
+            fadeEvent.commit();
+            fadeEvent = null;
+        }
     }
     
     public static void switchTo(String stateName) { 
@@ -87,6 +115,7 @@ public class SceneManager {
     }
     
     public static void fixedUpdate() {
+        SimulationClock.tick();
         if (fadeStatus == 1) {
             fadeValue--;
             
@@ -98,12 +127,19 @@ public class SceneManager {
             if (fadeValue < 0) {
                 fadeValue = 0;
                 fadeStatus = 3;
+                commitFadeEvent();
+                SceneSwitchEvent switchEvent = new SceneSwitchEvent();
+                switchEvent.begin();
                 if (currentScene != null) {
+                    switchEvent.fromScene = currentScene.getName();
                     currentScene.onExit();
                 }
                 currentScene = nextScene;
                 currentScene.onEnter();
                 nextScene = null;
+                switchEvent.toScene = currentScene.getName();
+                switchEvent.commit();
+                beginFadeEvent("WAIT", currentScene);
                 
                 if (fadeMusic) Audio.setMusicScaleVolume(1.0);
             }
@@ -112,6 +148,8 @@ public class SceneManager {
             fadeStatus++;
             if (fadeStatus > waitBetweenFade) {
                 fadeStatus = 2;
+                commitFadeEvent();
+                beginFadeEvent("FADE_IN", currentScene);
             }
         }
         else if (fadeStatus == 2) {
@@ -119,6 +157,7 @@ public class SceneManager {
             if (fadeValue > FADE_SIZE) {
                 fadeValue = FADE_SIZE;
                 fadeStatus = 0;
+                commitFadeEvent();
                 currentScene.onTransitionFinished();
             }
         }
@@ -129,11 +168,14 @@ public class SceneManager {
         }
     }
 
+    // draws the scene and the fade of the snapshot being rendered
     public static void draw(Graphics2D g) {
-        if (currentScene != null) {
-            currentScene.draw(g);
-            if (fadeStatus != 0) {
-                g.setColor(ALPHAS[fadeValue]);
+        FrameSnapshot snapshot = FrameSnapshot.getRendering();
+        Scene scene = snapshot.getScene();
+        if (scene != null) {
+            scene.draw(g);
+            if (snapshot.isFading() && !scene.isFadeDrawn()) {
+                g.setColor(ALPHAS[snapshot.getFadeValue()]);
                 g.fillRect(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT);
             }
         }
@@ -1,6 +1,8 @@
 package wolf3d.infra;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import wolf3d.infra.Tiles.FloorTile;
 import wolf3d.infra.Tiles.SecretDoorTile;
@@ -17,12 +19,18 @@ public class SecretDoors {
 
     private static final double SECRET_DOOR_SPEED = 0.005;
     
-    private static final Set<SecretDoorTile> activatedSecretDoors 
-                                                            = new HashSet<>();
+    // list iterated by index, so the fixed update doesn't allocate iterators
+    private static final List<SecretDoorTile> activatedSecretDoors 
+                                                        = new ArrayList<>();
     
     private static final Set<SecretDoorTile> deactivatedSecretDoors 
                                                             = new HashSet<>();
 
+    public static void clear() {
+        activatedSecretDoors.clear();
+        deactivatedSecretDoors.clear();
+    }
+
     public static void activateSecretDoor(SecretDoorTile secretDoor) {
         if (secretDoor.getSecretDoorState() == SecretDoorState.CLOSED) {
             Audio.playSound("PUSHWALL");
@@ -32,10 +40,16 @@ public class SecretDoors {
         }
     }
     
+    public static int getActivatedSecretDoorsCount() {
+        return activatedSecretDoors.size();
+    }
+    
     public static void fixedUpdateSecretDoors() {
-        for (SecretDoorTile secretDoor : activatedSecretDoors) {
+        for (int i = 0; i < activatedSecretDoors.size(); i++) {
+            SecretDoorTile secretDoor = activatedSecretDoors.get(i);
             switch (secretDoor.getSecretDoorState()) {
                 case OPENING -> {
+                    LineOfSight.pushwallMoved();
                     secretDoor.incSecretDoorOpenRate(SECRET_DOOR_SPEED);
                     if (secretDoor.getSecretDoorOpenRate() > 1.0) {
                         secretDoor.setSecretDoorOpenRate(0);
@@ -52,6 +66,7 @@ public class SecretDoors {
                         sdr += secretDoor.getPushDirection().dy;
                         GameMap.getTiles()[sdr][sdc] = secretDoor;
                         secretDoor.setLocation(sdc, sdr);
+                        ChaseFlowField.invalidate();
                         if (secretDoor.getMovementCount() == 0) {
                             GameMap.getTiles()[sdr][sdc] = secretDoor.getTile();
                             secretDoor.setSecretDoorState(SecretDoorState.OPEN);
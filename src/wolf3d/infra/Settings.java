@@ -13,6 +13,16 @@ public class Settings {
     
     public static final int CANVAS_WIDTH = 320;
     public static final int CANVAS_HEIGHT = 200;
+    
+    public static final int HUD_HEIGHT = 40;
+    
+    // internal render resolutions, all of them keep the canvas aspect ratio.
+    // the 3D view is rendered natively at the selected resolution and 
+    // the 2D content is scaled from CANVAS_WIDTH x CANVAS_HEIGHT.
+    public static final int[][] RENDER_RESOLUTIONS 
+            = { { 320, 200 }, { 640, 400 }, { 1280, 800 }, { 1920, 1200 } };
+    
+    public static int renderResolutionIndex = 0;
 
     public static final int PREFERRED_SCREEN_WIDTH = (int) (320 * 2.5);
     public static final int PREFERRED_SCREEN_HEIGHT = (int) (240 * 2.5);
@@ -24,13 +34,74 @@ public class Settings {
 
     public static final int KEY_KEEP_ASPECT_RATIO = KeyEvent.VK_F11;
     public static final int KEY_FULLSCREEN = KeyEvent.VK_F12;
+    public static final int KEY_RENDER_RESOLUTION = KeyEvent.VK_F8;
+
+
+    // --- renderer ---
+    
+    // true = render the 3D view (walls, floor, ceiling and sprites) as
+    //        palette indices directly into the indexed frame buffer pixels
+    // false = draw each wall column and sprite with Graphics2D.drawImage()
+    public static volatile boolean softwareWallRenderer = true;
+    
+    public static final int KEY_SOFTWARE_WALL_RENDERER = KeyEvent.VK_F10;
+    
+    // cast the rays of the 3D view splitting the columns across threads
+    public static volatile boolean parallelRaycasting = false;
+    
+    public static final int RAYCASTING_THREADS 
+                                = Runtime.getRuntime().availableProcessors();
+    
+    public static final int KEY_PARALLEL_RAYCASTING = KeyEvent.VK_F9;
+    
+    // show the number of pixels written by the 3D view pass in this frame
+    public static volatile boolean showPixelWrites = false;
+    
+    public static final int KEY_SHOW_PIXEL_WRITES = KeyEvent.VK_F7;
+    
+    // true = the simulation runs in its own thread and the render thread 
+    //        draws the latest published FrameSnapshot
+    // false = simulation and rendering run serially in the same thread
+    public static volatile boolean pipelinedRendering = false;
+    
+    public static final int KEY_PIPELINED_RENDERING = KeyEvent.VK_F6;
+    
+    // show the time of each phase of the frame (see PerfOverlay)
+    public static volatile boolean showPerfOverlay = false;
+    
+    public static final int KEY_SHOW_PERF_OVERLAY = KeyEvent.VK_F4;
 
 
     // --- game loop ---
     
     public static final long TIME_PER_UPDATE = 1000000000 / 60;
+    
+    // when the simulation falls further behind (for example, after a 
+    // long hitch), the remaining fixed updates are dropped
+    public static final int MAX_FIXED_UPDATES_PER_FRAME = 15;
+    
+    // seed of the random numbers of the simulation, a fixed value makes 
+    // the runs with the same inputs reproducible (see SimulationClock)
+    public static long randomSeed = System.nanoTime();
+    
+    // UNCAPPED = render as fast as possible
+    // FIXED_FPS = limit the frame rate to fpsCap
+    // DISPLAY_REFRESH = limit the frame rate to the display refresh rate
+    public static volatile FramePacer.Mode framePacing 
+                                    = FramePacer.Mode.DISPLAY_REFRESH;
+    
+    public static volatile int fpsCap = 60;
+    
+    public static final int KEY_FRAME_PACING = KeyEvent.VK_F5;
 
     
+    // --- map ---
+    
+    // keep the potentially visible set of each map (see PVS) in a file 
+    // in the user directory, so it is computed only once
+    public static boolean pvsDiskCache = false;
+    
+    
     // --- input (changeable) ---
     
     public static int KEY_START_1 = KeyEvent.VK_SPACE;
@@ -0,0 +1,45 @@
+package wolf3d.infra;
+
+import static wolf3d.infra.Settings.*;
+
+/**
+ * SimulationClock class.
+ *
+ * Time of the simulation, counted in fixed updates (ticks of
+ * TIME_PER_UPDATE) instead of read from the wall clock, so the game state
+ * only depends on the number of fixed updates and the inputs, whatever
+ * the frame rate or the speed the fixed updates are run at. Together with
+ * the seeded random numbers (see Util.random()), a run with the same seed
+ * and inputs produces the same state, and the simulation can be run
+ * faster than real time.
+ *
+ * The clock ticks once before each fixed update of the scene manager.
+ * Only updated by the simulation thread.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class SimulationClock {
+
+    private static volatile long ticks;
+
+    public static void reset() {
+        ticks = 0;
+    }
+
+    public static void tick() {
+        ticks++;
+    }
+
+    public static long getTicks() {
+        return ticks;
+    }
+
+    public static long getTimeMs() {
+        return ticks * TIME_PER_UPDATE / 1000000;
+    }
+
+    public static long getTimeNano() {
+        return ticks * TIME_PER_UPDATE;
+    }
+
+}
@@ -0,0 +1,159 @@
+package wolf3d.infra;
+
+import java.util.Arrays;
+import wolf3d.infra.Objs.Obj;
+
+/**
+ * SpriteOrder class.
+ *
+ * Back to front drawing order of the visible sprites that exploits the
+ * frame to frame coherence: the sprites seen in the previous frame are
+ * placed in their previous order (each obj remembers its position), the
+ * newly visible ones are appended, and then an insertion sort on the
+ * primitive depth keys fixes the few sprites that changed their relative
+ * order. So when the player moves a little, ordering is almost linear
+ * instead of sorting hundreds of sprites from scratch every frame.
+ *
+ * The depth of the drawFirst sprites (the ones with shadow) is increased
+ * by DRAW_FIRST_DEPTH, so they are always drawn before the others.
+ *
+ * Only one instance should be used (the obj position is stored in the obj)
+ * and only by the render thread.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class SpriteOrder<T> {
+
+    public static final double DRAW_FIRST_DEPTH = 1000;
+
+    private Obj[] objs = new Obj[256];
+    private Object[] items = new Object[256];
+    private double[] depths = new double[256];
+    private int size;
+
+    // sprites of the previous frame placed in the previous order
+    private Obj[] placedObjs = new Obj[256];
+    private Object[] placedItems = new Object[256];
+    private double[] placedDepths = new double[256];
+    private int previousSize;
+
+    private int frame;
+
+    // statistics of the last sort
+    private int reusedCount;
+    private int shiftsCount;
+
+    public void clear() {
+        Arrays.fill(objs, 0, size, null);
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    // depth = distance from the player (farther sprites are drawn first)
+    public void add(Obj obj, T item, boolean drawFirst, double depth) {
+        if (size == objs.length) {
+            int newLength = size * 2;
+            objs = Arrays.copyOf(objs, newLength);
+            items = Arrays.copyOf(items, newLength);
+            depths = Arrays.copyOf(depths, newLength);
+        }
+        objs[size] = obj;
+        items[size] = item;
+        depths[size] = drawFirst ? depth + DRAW_FIRST_DEPTH : depth;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) items[index];
+    }
+
+    public int getReusedCount() {
+        return reusedCount;
+    }
+
+    public int getShiftsCount() {
+        return shiftsCount;
+    }
+
+    public void sort() {
+        int capacity = previousSize + size;
+        if (placedObjs.length < capacity) {
+            placedObjs = new Obj[capacity * 2];
+            placedItems = new Object[capacity * 2];
+            placedDepths = new double[capacity * 2];
+        }
+
+        // --- previous order ---
+
+        // the sprites seen in the previous frame go to their previous
+        // positions, the others are appended after them
+        int appended = previousSize;
+        reusedCount = 0;
+        for (int i = 0; i < size; i++) {
+            Obj obj = objs[i];
+            int position = obj.orderPosition;
+            if (obj.orderFrame == frame && position < previousSize
+                                        && placedObjs[position] == null) {
+
+                place(position, i);
+                reusedCount++;
+            }
+            else {
+                place(appended++, i);
+            }
+        }
+
+        // compact the placed sprites keeping the order
+        int count = 0;
+        for (int p = 0; p < appended; p++) {
+            if (placedObjs[p] != null) {
+                objs[count] = placedObjs[p];
+                items[count] = placedItems[p];
+                depths[count] = placedDepths[p];
+                count++;
+            }
+        }
+        Arrays.fill(placedObjs, 0, appended, null);
+        Arrays.fill(placedItems, 0, appended, null);
+
+        // --- insertion sort (stable, almost linear if nearly sorted) ---
+
+        shiftsCount = 0;
+        for (int i = 1; i < size; i++) {
+            Obj obj = objs[i];
+            Object item = items[i];
+            double depth = depths[i];
+            int j = i - 1;
+            while (j >= 0 && depths[j] < depth) {
+                objs[j + 1] = objs[j];
+                items[j + 1] = items[j];
+                depths[j + 1] = depths[j];
+                j--;
+            }
+            shiftsCount += i - 1 - j;
+            objs[j + 1] = obj;
+            items[j + 1] = item;
+            depths[j + 1] = depth;
+        }
+
+        // remember the order for the next frame
+        frame++;
+        for (int i = 0; i < size; i++) {
+            objs[i].orderFrame = frame;
+            objs[i].orderPosition = i;
+        }
+        previousSize = size;
+    }
+
+    private void place(int position, int index) {
+        placedObjs[position] = objs[index];
+        placedItems[position] = items[index];
+        placedDepths[position] = depths[index];
+    }
+
+}
@@ -0,0 +1,51 @@
+package wolf3d.infra;
+
+import static wolf3d.infra.Objs.SPRITE_SIZE;
+
+/**
+ * SpriteScalers class.
+ *
+ * Precomputed scaler tables, one for each scaled sprite size, like the
+ * compiled scalers of the original game. For a sprite scaled to size
+ * pixels, the texel t (row or column) covers the pixels
+ * scaler[t] ~ scaler[t + 1] - 1, so each texel is drawn as a run of pixels
+ * without any per pixel texture stepping.
+ *
+ * The tables are created on the first use of each size. Sizes above
+ * MAX_CACHED_SIZE (player touching the sprite at high resolutions) reuse
+ * one temporary table.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class SpriteScalers {
+
+    private static final int MAX_CACHED_SIZE = 4096;
+
+    private static final int[][] SCALERS = new int[MAX_CACHED_SIZE + 1][];
+
+    private static final int[] scalerTmp = new int[SPRITE_SIZE + 1];
+
+    // only called by the render thread
+    public static int[] getScaler(int size) {
+        if (size > MAX_CACHED_SIZE) {
+            fillScaler(scalerTmp, size);
+            return scalerTmp;
+        }
+        int[] scaler = SCALERS[size];
+        if (scaler == null) {
+            scaler = new int[SPRITE_SIZE + 1];
+            fillScaler(scaler, size);
+            SCALERS[size] = scaler;
+        }
+        return scaler;
+    }
+
+    // first pixel p where p * SPRITE_SIZE / size >= t
+    private static void fillScaler(int[] scaler, int size) {
+        for (int t = 0; t <= SPRITE_SIZE; t++) {
+            scaler[t] = (int) (((long) t * size + SPRITE_SIZE - 1)
+                                                            / SPRITE_SIZE);
+        }
+    }
+
+}
@@ -10,6 +10,7 @@ import static wolf3d.infra.Player.PLAYER_RADIUS;
 import static wolf3d.infra.Tiles.DoorTile.DoorState.*;
 import wolf3d.infra.Tiles.DoorTile.DoorKey;
 import static wolf3d.infra.Tiles.TileType.*;
+import wolf3d.infra.TimerWheel.Timer;
 
 /**
  * Tiles class.
@@ -160,7 +161,7 @@ public class Tiles {
         
         private double doorOpenRate = 0.0; // 0.0~1.0
         private DoorState doorState = CLOSED;
-        private long doorCloseTime;
+        private final Timer closeTimer = new Timer(this);
         
         private BufferedImage texture;
         private final int doorSide; // 0=horizontal, 1=vertical
@@ -209,12 +210,8 @@ public class Tiles {
             this.doorState = doorState;
         }
 
-        public long getDoorCloseTime() {
-            return doorCloseTime;
-        }
-
-        public void setDoorCloseTime(long doorCloseTime) {
-            this.doorCloseTime = doorCloseTime;
+        public Timer getCloseTimer() {
+            return closeTimer;
         }
 
         public int getDoorSide() {
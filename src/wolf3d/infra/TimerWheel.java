@@ -0,0 +1,219 @@
+package wolf3d.infra;
+
+import static wolf3d.infra.Settings.*;
+
+/**
+ * TimerWheel class.
+ *
+ * Timers of the simulation (door closing, enemy reactions, HUD face
+ * animation) counted in fixed update ticks, so they follow the simulation
+ * clock instead of the wall clock and pauses or slow frames don't skew
+ * them. The subsystems schedule a timer with a listener, and the wheel
+ * calls the listener in the tick the timer is due, so nothing is polled
+ * while waiting.
+ *
+ * Hierarchical timer wheel: LEVEL0_SLOTS slots of one tick, then two
+ * levels of LEVEL_SLOTS slots of LEVEL0_SLOTS and LEVEL0_SLOTS *
+ * LEVEL_SLOTS ticks, whose timers cascade to the lower level when their
+ * slot comes. Each slot is a doubly linked list of the timers themselves,
+ * so scheduling and canceling are O(1) and don't allocate anything.
+ *
+ * The wheel only advances while the player is playing, so its time
+ * (getTimeMs()) is the play time of the current map, while
+ * SimulationClock counts all the fixed updates.
+ *
+ * Only used by the simulation thread.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class TimerWheel {
+
+    private static final int LEVEL0_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVEL0_SLOTS = 1 << LEVEL0_BITS;
+    private static final int LEVEL_SLOTS = 1 << LEVEL_BITS;
+    private static final int LEVEL1_SHIFT = LEVEL0_BITS;
+    private static final int LEVEL2_SHIFT = LEVEL0_BITS + LEVEL_BITS;
+    private static final long LEVEL1_RANGE = 1L << LEVEL2_SHIFT;
+    private static final long LEVEL2_RANGE = 1L << (LEVEL2_SHIFT + LEVEL_BITS);
+
+    private static final int TICKS_PER_SECOND
+                            = (int) (1000000000 / TIME_PER_UPDATE);
+
+    public static interface TimerListener {
+
+        void timerExpired(Timer timer);
+
+    }
+
+    public static class Timer {
+
+        private final Object owner;
+        private TimerListener listener;
+        private long dueTick;
+        private boolean scheduled;
+
+        // slot list
+        private Timer[] slots;
+        private int slot;
+        private Timer previous;
+        private Timer next;
+
+        // owner = object the listener acts on
+        public Timer(Object owner) {
+            this.owner = owner;
+        }
+
+        public Object getOwner() {
+            return owner;
+        }
+
+        public boolean isScheduled() {
+            return scheduled;
+        }
+
+        public long getDueTick() {
+            return dueTick;
+        }
+
+    }
+
+    private static final Timer[] level0 = new Timer[LEVEL0_SLOTS];
+    private static final Timer[] level1 = new Timer[LEVEL_SLOTS];
+    private static final Timer[] level2 = new Timer[LEVEL_SLOTS];
+
+    private static long ticks;
+
+    // simulation time
+    public static long getTicks() {
+        return ticks;
+    }
+
+    public static long getTimeMs() {
+        return ticks * 1000 / TICKS_PER_SECOND;
+    }
+
+    // at least one tick, so the listener is never called immediately
+    public static long toTicks(long delayMs) {
+        return Math.max(1, (delayMs * TICKS_PER_SECOND + 999) / 1000);
+    }
+
+    // reschedules the timer if it is already scheduled
+    public static void schedule(
+                    Timer timer, long delayMs, TimerListener listener) {
+
+        cancel(timer);
+        timer.listener = listener;
+        timer.dueTick = ticks + toTicks(delayMs);
+        timer.scheduled = true;
+        insert(timer);
+    }
+
+    public static void cancel(Timer timer) {
+        if (!timer.scheduled) {
+            return;
+        }
+        remove(timer);
+        timer.scheduled = false;
+        timer.listener = null;
+    }
+
+    // cancels all the timers and restarts the count (map loaded), 
+    // so the timers of a map don't depend on the maps played before
+    public static void clear() {
+        clear(level0);
+        clear(level1);
+        clear(level2);
+        ticks = 0;
+    }
+
+    private static void clear(Timer[] slots) {
+        for (int s = 0; s < slots.length; s++) {
+            while (slots[s] != null) {
+                cancel(slots[s]);
+            }
+        }
+    }
+
+    private static void insert(Timer timer) {
+        long delta = timer.dueTick - ticks;
+        if (delta < LEVEL0_SLOTS) {
+            add(timer, level0, (int) (timer.dueTick & (LEVEL0_SLOTS - 1)));
+        }
+        else if (delta < LEVEL1_RANGE) {
+            add(timer, level1, (int) ((timer.dueTick >> LEVEL1_SHIFT)
+                                                    & (LEVEL_SLOTS - 1)));
+        }
+        else {
+            // too far, it cascades again until it gets closer
+            long tick = timer.dueTick;
+            if (delta >= LEVEL2_RANGE) {
+                tick = ticks + LEVEL2_RANGE - 1;
+            }
+            add(timer, level2, (int) ((tick >> LEVEL2_SHIFT)
+                                                    & (LEVEL_SLOTS - 1)));
+        }
+    }
+
+    private static void add(Timer timer, Timer[] slots, int slot) {
+        timer.slots = slots;
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[slot] = timer;
+    }
+
+    private static void remove(Timer timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        }
+        else {
+            timer.slots[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.slots = null;
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    // moves the timers of the slot to the lower levels
+    private static void cascade(Timer[] slots, int slot) {
+        Timer timer = slots[slot];
+        slots[slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            insert(timer);
+            timer = next;
+        }
+    }
+
+    // called once per fixed update, calls the listeners of the due timers
+    public static void advance() {
+        ticks++;
+        int slot0 = (int) (ticks & (LEVEL0_SLOTS - 1));
+        if (slot0 == 0) {
+            int slot1 = (int) ((ticks >> LEVEL1_SHIFT) & (LEVEL_SLOTS - 1));
+            if (slot1 == 0) {
+                cascade(level2, (int) ((ticks >> LEVEL2_SHIFT)
+                                                    & (LEVEL_SLOTS - 1)));
+            }
+            cascade(level1, slot1);
+        }
+
+        // the listeners can schedule new timers, even in this same slot
+        // (but at least one tick later), so always take the first one
+        Timer timer = level0[slot0];
+        while (timer != null && timer.dueTick == ticks) {
+            TimerListener listener = timer.listener;
+            cancel(timer);
+            listener.timerExpired(timer);
+            timer = level0[slot0];
+        }
+    }
+
+}
@@ -1,9 +1,10 @@
 package wolf3d.infra;
 
 import java.awt.Color;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.SplittableRandom;
+import static wolf3d.infra.Settings.randomSeed;
 
 /**
  * Util class.
@@ -12,39 +13,95 @@ import java.util.Random;
  */
 public class Util {
     
-    private static final Random RANDOM = new Random(System.nanoTime());
+    // the only source of random numbers of the simulation, so the runs 
+    // with the same seed and inputs are the same (see SimulationClock)
+    private static SplittableRandom random 
+                                    = new SplittableRandom(randomSeed);
     
     public static double clamp(double val, double min, double max) {
         return Math.max(min, Math.min(max, val));
     }
 
+    public static void setRandomSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    // 0.0 (inclusive) ~ 1.0 (exclusive)
+    public static double random() {
+        return random.nextDouble();
+    }
+
     public static int random(int n) {
-        return RANDOM.nextInt(n);
+        return random.nextInt(n);
     }
 
     public static int random(int a, int b) {
-        return a + RANDOM.nextInt(b - a + 1);
+        return a + random.nextInt(b - a + 1);
     }
     
+    // size in bytes of the pixel data of the image
+    public static long getImageDataSize(BufferedImage image) {
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        return (long) dataBuffer.getSize() * dataBuffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+    }
+    
+    // simulation time, not the wall clock (see SimulationClock)
     public static long getTimeMs() {
-        return System.currentTimeMillis();
+        return SimulationClock.getTimeMs();
     }
 
     public static long getTimeNano() {
-        return System.nanoTime();
+        return SimulationClock.getTimeNano();
     }
     
-    private static final Map<Integer, Color> colorsCache = new HashMap<>();
+    // open addressing hash table (linear probing) indexed by the ARGB 
+    // value, so getting a cached color doesn't box the key
+    private static int[] colorsCacheKeys = new int[256];
+    private static Color[] colorsCacheColors = new Color[256];
+    private static int colorsCacheSize;
     
     public static Color getColor(int r, int g, int b, int a) {
         int colorKey = b + (g << 8) + (r << 16) + (a << 24);
-        Color color = colorsCache.get(colorKey);
-        if (color == null) {
-            color = new Color(r, g, b, a);
-            colorsCache.put(colorKey, color);
+        int mask = colorsCacheKeys.length - 1;
+        int index = getColorsCacheIndex(colorKey, mask);
+        while (colorsCacheColors[index] != null) {
+            if (colorsCacheKeys[index] == colorKey) {
+                return colorsCacheColors[index];
+            }
+            index = (index + 1) & mask;
+        }
+        Color color = new Color(r, g, b, a);
+        colorsCacheKeys[index] = colorKey;
+        colorsCacheColors[index] = color;
+        colorsCacheSize++;
+        if (2 * colorsCacheSize > colorsCacheKeys.length) {
+            growColorsCache();
         }
         return color;
     }
+    
+    private static int getColorsCacheIndex(int colorKey, int mask) {
+        return (colorKey * 0x9e3779b9 >>> 12) & mask;
+    }
+    
+    private static void growColorsCache() {
+        int[] keys = colorsCacheKeys;
+        Color[] colors = colorsCacheColors;
+        colorsCacheKeys = new int[2 * keys.length];
+        colorsCacheColors = new Color[2 * colors.length];
+        int mask = colorsCacheKeys.length - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (colors[i] != null) {
+                int index = getColorsCacheIndex(keys[i], mask);
+                while (colorsCacheColors[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                colorsCacheKeys[index] = keys[i];
+                colorsCacheColors[index] = colors[i];
+            }
+        }
+    }
 
     // example: red color = 0xff0000
     public static Color getColor(String encodedColor) {
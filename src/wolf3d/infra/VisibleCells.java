@@ -0,0 +1,87 @@
+package wolf3d.infra;
+
+import java.util.Arrays;
+import static wolf3d.infra.GameMap.MAP_COLS;
+import static wolf3d.infra.GameMap.MAP_ROWS;
+
+/**
+ * VisibleCells class.
+ *
+ * Set of the map cells visited by the rays during the raycasting, in the
+ * order they were found. The membership is kept in an epoch stamped grid
+ * (a cell is in the set if its stamp is the current epoch), so marking
+ * a cell is just an array compare, clearing the set is incrementing the
+ * epoch, and nothing is hashed or allocated after the cells array
+ * reached its capacity.
+ *
+ * The visible decorations and collectables are gathered from the objs of
+ * the visible cells, and the enemies outside the visible cells are culled.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class VisibleCells {
+
+    private final int[] stamps = new int[MAP_ROWS * MAP_COLS];
+    private int epoch = 1;
+    private int[] cells = new int[256];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    // cell index = row * MAP_COLS + col
+    public int getCell(int index) {
+        return cells[index];
+    }
+
+    public boolean isVisible(int col, int row) {
+        if (col < 0 || col > MAP_COLS - 1 || row < 0 || row > MAP_ROWS - 1) {
+            return false;
+        }
+        return stamps[row * MAP_COLS + col] == epoch;
+    }
+
+    // if the cell or any of its 8 neighbors is visible. Used for sprites
+    // that move freely, since they can stick out into the neighbor cells.
+    public boolean isVisibleAround(int col, int row) {
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (isVisible(c, r)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void add(int col, int row) {
+        int cell = row * MAP_COLS + col;
+        if (stamps[cell] == epoch) {
+            return;
+        }
+        stamps[cell] = epoch;
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, 2 * cells.length);
+        }
+        cells[size++] = cell;
+    }
+
+    public void addAll(VisibleCells visibleCells) {
+        for (int i = 0; i < visibleCells.size; i++) {
+            int cell = visibleCells.cells[i];
+            add(cell % MAP_COLS, cell / MAP_COLS);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        epoch++;
+        // after wrapping around, old stamps could match the new epoch
+        if (epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+}
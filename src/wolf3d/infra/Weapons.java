@@ -311,10 +311,31 @@ public class Weapons {
     }
     
     // draw weapon sprite on top
+    public static BufferedImage getCurrentPlayerWeaponSprite() {
+        if (currentPlayerWeapon == null) {
+            return null;
+        }
+        return currentPlayerWeapon.getSprite();
+    }
+    
     public static void draw(Graphics2D g) {
+        draw(g, false);
+    }
+
+    // indexed = true draws into the indexed frame buffer pixels
+    public static void draw(Graphics2D g, boolean indexed) {
         int offsety = CANVAS_HEIGHT / 2 - 40;
-        g.drawImage(currentPlayerWeapon.getSprite()
-            , CANVAS_WIDTH / 2 - 64, offsety + 100 - 128, 128, 128, null);
+        BufferedImage weaponSprite 
+                = FrameSnapshot.getRendering().getWeaponSprite();
+        
+        if (indexed) {
+            FrameBuffer.drawIndexedImage(weaponSprite
+                    , CANVAS_WIDTH / 2 - 64, offsety + 100 - 128, 128, 128);
+        }
+        else {
+            g.drawImage(weaponSprite
+                , CANVAS_WIDTH / 2 - 64, offsety + 100 - 128, 128, 128, null);
+        }
     }
 
 }
@@ -39,8 +39,6 @@ public class Wolf3DGame {
     private static int collectedTreasuresCount;
     private static int secretDoorsFoundCount;
     
-    private static EnemyObj closestEnemyInSight;
-    
     private static boolean playing;
     private static boolean backToGame;
     
@@ -117,14 +115,6 @@ public class Wolf3DGame {
         Wolf3DGame.difficulty = difficulty;
     }
 
-    public static EnemyObj getClosestEnemyInSight() {
-        return closestEnemyInSight;
-    }
-
-    public static void setClosestEnemyInSight(EnemyObj closestEnemyInSight) {
-        Wolf3DGame.closestEnemyInSight = closestEnemyInSight;
-    }
-
     private static int nextFloor;
     
     public static void gotoSecretLevel() {
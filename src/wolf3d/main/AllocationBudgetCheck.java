@@ -0,0 +1,94 @@
+package wolf3d.main;
+
+import java.awt.Graphics2D;
+import java.lang.management.ManagementFactory;
+import wolf3d.infra.FrameBuffer;
+import wolf3d.infra.FrameSnapshot;
+import wolf3d.infra.Player;
+import wolf3d.infra.Resource;
+import wolf3d.infra.SceneManager;
+import wolf3d.infra.Settings;
+import static wolf3d.infra.Settings.*;
+import wolf3d.infra.Wolf3DGame;
+
+/**
+ * AllocationBudgetCheck class.
+ *
+ * Runs the steady state game loop (fixed update, frame snapshot and 3D
+ * view rendering into the offscreen frame buffer) headless and checks
+ * that it doesn't allocate anything on the heap, so the game loop
+ * doesn't produce garbage that could cause GC pauses while playing.
+ *
+ * The player stays at the start location turning around and the life
+ * energy is refilled every frame, so the enemies can react and attack
+ * without changing the scene. The first frames are ignored (warm up),
+ * since the caches and pools are filled while the JIT compiles the code.
+ *
+ * The presentation of the frame (BufferStrategy) is not measured,
+ * because Java2D creates a new Graphics for each shown frame.
+ *
+ * Usage: AllocationBudgetCheck [floor] [frames]
+ * Exit status 1 if the measured frames allocated any byte.
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class AllocationBudgetCheck {
+
+    private static final int WARMUP_FRAMES = 3000;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int floor = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        // the overlays and worker threads are not part of the budget
+        Settings.parallelRaycasting = false;
+        Settings.showPixelWrites = false;
+        Settings.showPerfOverlay = false;
+
+        Resource.initialize();
+        FrameBuffer.create(CANVAS_WIDTH, CANVAS_HEIGHT);
+        HeadlessBenchmark.enterStage(floor);
+
+        double x = Player.getPlayerX();
+        double y = Player.getPlayerY();
+        Graphics2D g = FrameBuffer.getGraphics();
+        for (int f = 0; f < WARMUP_FRAMES; f++) {
+            runFrame(g, x, y, f);
+        }
+
+        com.sun.management.ThreadMXBean threadMXBean
+                = (com.sun.management.ThreadMXBean)
+                            ManagementFactory.getThreadMXBean();
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int f = 0; f < frames; f++) {
+            runFrame(g, x, y, WARMUP_FRAMES + f);
+        }
+        long allocated
+                = threadMXBean.getThreadAllocatedBytes(threadId)
+                                                        - allocatedStart;
+
+        System.out.println("floor: " + floor + ", frames: " + frames
+                + ", allocated bytes: " + allocated + String.format(
+                    " (%.1f per frame)", allocated / (double) frames));
+
+        if (allocated > 0) {
+            System.out.println("allocation budget exceeded!");
+            System.exit(1);
+        }
+        System.out.println("ok");
+    }
+
+    private static void runFrame(Graphics2D g, double x, double y, int f) {
+        Wolf3DGame.addLifeEnergy(100);
+        Player.reset(x, y, f * 2 * Math.PI / 600);
+        SceneManager.fixedUpdate();
+        FrameSnapshot.capture();
+        FrameSnapshot.acquire();
+        SceneManager.draw(g);
+    }
+
+}
@@ -0,0 +1,157 @@
+package wolf3d.main;
+
+import java.awt.Graphics2D;
+import java.util.List;
+import java.util.SplittableRandom;
+import wolf3d.infra.Enemies;
+import wolf3d.infra.FrameBuffer;
+import wolf3d.infra.FrameSnapshot;
+import wolf3d.infra.Objs.EnemyObj;
+import wolf3d.infra.Player;
+import static wolf3d.infra.Player.PlayerState.PLAYING;
+import wolf3d.infra.Resource;
+import wolf3d.infra.SceneManager;
+import static wolf3d.infra.Settings.*;
+import wolf3d.infra.SimulationClock;
+import wolf3d.infra.Util;
+import wolf3d.infra.Wolf3DGame;
+
+/**
+ * DeterminismCheck class.
+ *
+ * Runs the selected floor (without any window, audio or input) three
+ * times, as fast as possible, with the same loop of the game: the fixed
+ * updates of each frame, then the variable update with the frame delta,
+ * then the state is captured (FrameSnapshot) and the Stage is drawn into
+ * the offscreen frame buffer. Without input, the enemies find and kill
+ * the player, so the deaths (rotation, fizzle fade, next life) are
+ * simulated too. After each run, a hash of the game state (player,
+ * enemies, score) is printed.
+ *
+ * The first two runs use the same random seed, but a different frame
+ * pacing (one fixed update per frame, or 0~4 fixed updates per frame with
+ * the matching deltas) and a different render resolution, so their hashes
+ * must be the same: the simulation only depends on the fixed updates 
+ * (see SimulationClock) and the seeded random numbers, not on the frame
+ * rate or on what is rendered. The third run uses another seed, so its
+ * hash must be different. Otherwise the check exits with status 1.
+ *
+ * Usage: DeterminismCheck [floor] [fixed updates] [seed]
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class DeterminismCheck {
+
+    private static final int MAX_FIXED_UPDATES_PER_FRAME = 4;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int floor = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int fixedUpdates = args.length > 1 ? Integer.parseInt(args[1]) : 36000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        Resource.initialize();
+
+        System.out.println("floor: " + floor
+                        + ", fixed updates: " + fixedUpdates);
+
+        long hash1 = run(floor, fixedUpdates, seed, false
+                                        , CANVAS_WIDTH, CANVAS_HEIGHT);
+
+        long hash2 = run(floor, fixedUpdates, seed, true
+                                , 2 * CANVAS_WIDTH, 2 * CANVAS_HEIGHT);
+
+        long hash3 = run(floor, fixedUpdates, seed + 1, false
+                                        , CANVAS_WIDTH, CANVAS_HEIGHT);
+
+        System.out.println(String.format("run 1: %016x", hash1));
+        System.out.println(String.format("run 2: %016x", hash2));
+        System.out.println(String.format("run 3: %016x", hash3));
+        if (hash1 != hash2) {
+            System.out.println("NOT deterministic!");
+            System.exit(1);
+        }
+        // the state doesn't depend on the random numbers at all
+        if (hash1 == hash3) {
+            System.out.println("same state with another seed!");
+            System.exit(1);
+        }
+        System.out.println("deterministic");
+    }
+
+    // variablePacing = false: one fixed update per frame
+    //                  true:  0~MAX_FIXED_UPDATES_PER_FRAME fixed updates 
+    //                         per frame (own generator, so the simulation 
+    //                         random numbers are not used)
+    private static long run(int floor, int fixedUpdates, long seed
+            , boolean variablePacing, int width, int height) {
+
+        Util.setRandomSeed(seed);
+        SimulationClock.reset();
+        FrameBuffer.create(width, height);
+        Graphics2D g = FrameBuffer.getGraphics();
+        HeadlessBenchmark.enterStage(floor);
+        SplittableRandom pacing = new SplittableRandom(seed);
+        int frames = 0;
+        int deaths = 0;
+        boolean dying = false;
+        long start = System.nanoTime();
+        int u = 0;
+        while (u < fixedUpdates) {
+            int frameUpdates = variablePacing 
+                    ? pacing.nextInt(MAX_FIXED_UPDATES_PER_FRAME + 1) : 1;
+
+            frameUpdates = Math.min(frameUpdates, fixedUpdates - u);
+            for (int i = 0; i < frameUpdates; i++) {
+                SceneManager.fixedUpdate();
+                u++;
+                boolean playing = Player.getPlayerState() == PLAYING;
+                if (!playing && !dying) {
+                    deaths++;
+                }
+                dying = !playing;
+            }
+            SceneManager.update(frameUpdates * TIME_PER_UPDATE * 0.000000001);
+            FrameSnapshot.capture();
+            FrameSnapshot.acquire();
+            SceneManager.draw(g);
+            frames++;
+        }
+        double ms = (System.nanoTime() - start) * 0.000001;
+        System.out.println(String.format(
+            "seed %d, %dx%d, %d frames: %.1f ms, %.1f x real time, deaths %d"
+                        , seed, width, height, frames, ms
+                            , fixedUpdates * TIME_PER_UPDATE * 0.000001 / ms
+                                , deaths));
+
+        return getStateHash();
+    }
+
+    private static long getStateHash() {
+        long hash = 17;
+        hash = hash(hash, Double.doubleToLongBits(Player.getPlayerX()));
+        hash = hash(hash, Double.doubleToLongBits(Player.getPlayerY()));
+        hash = hash(hash, Double.doubleToLongBits(Player.getPlayerAngle()));
+        hash = hash(hash, Player.getPlayerState().ordinal());
+        hash = hash(hash, Wolf3DGame.getLives());
+        hash = hash(hash, Wolf3DGame.getLifeEnergy());
+        hash = hash(hash, Wolf3DGame.getScore());
+        List<EnemyObj> enemies = Enemies.getEnemies();
+        for (int i = 0; i < enemies.size(); i++) {
+            EnemyObj enemy = enemies.get(i);
+            hash = hash(hash, Double.doubleToLongBits(enemy.getEnemyX()));
+            hash = hash(hash, Double.doubleToLongBits(enemy.getEnemyY()));
+            hash = hash(hash, enemy.getEnemyState().ordinal());
+            hash = hash(hash, enemy.getEnemyLife());
+            hash = hash(hash
+                    , Double.doubleToLongBits(enemy.getAnimationFrame()));
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, long value) {
+        return 31 * hash + value;
+    }
+
+}
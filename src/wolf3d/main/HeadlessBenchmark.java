@@ -0,0 +1,156 @@
+package wolf3d.main;
+
+import java.awt.Graphics2D;
+import java.util.Arrays;
+import wolf3d.infra.FrameBuffer;
+import wolf3d.infra.FrameSnapshot;
+import wolf3d.infra.GameMap;
+import wolf3d.infra.Player;
+import wolf3d.infra.Resource;
+import wolf3d.infra.SceneManager;
+import static wolf3d.infra.Settings.*;
+import wolf3d.infra.Tiles.Tile;
+import static wolf3d.infra.Tiles.TileType.FLOOR;
+import wolf3d.infra.Weapons;
+import wolf3d.infra.Wolf3DGame;
+import wolf3d.scene.Stage;
+
+/**
+ * HeadlessBenchmark class.
+ *
+ * Renders Stage frames into the offscreen frame buffer without any window
+ * (java.awt.headless=true) and reports the frames per second, so the
+ * render performance can be measured on machines without a display.
+ *
+ * The camera follows a scripted path from the player start location
+ * of the selected floor: first it walks back and forth along the longest
+ * free straight line looking around, then it turns 360 degrees.
+ * The simulation doesn't run, so all runs render the same frames.
+ *
+ * Usage: HeadlessBenchmark [floor] [frames] [width] [height]
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class HeadlessBenchmark {
+
+    private static final int WARMUP_FRAMES = 200;
+    private static final int MAX_WALK_CELLS = 16;
+    private static final int[][] WALK_DIRECTIONS
+                            = { { 1, 0 }, { 0, 1 }, { -1, 0 }, { 0, -1 } };
+
+    private static double startX;
+    private static double startY;
+    private static double walkDx;
+    private static double walkDy;
+    private static int walkCells;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int floor = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : CANVAS_WIDTH;
+        int height = args.length > 3
+                            ? Integer.parseInt(args[3]) : CANVAS_HEIGHT;
+
+        Resource.initialize();
+        FrameBuffer.create(width, height);
+        enterStage(floor);
+        createCameraPath();
+
+        System.out.println("floor: " + floor + ", frames: " + frames
+                + ", resolution: " + width + "x" + height
+                        + ", camera path: " + walkCells + " cells");
+
+        Graphics2D g = FrameBuffer.getGraphics();
+        for (int f = 0; f < WARMUP_FRAMES; f++) {
+            renderFrame(g, f / (double) WARMUP_FRAMES);
+        }
+
+        long[] frameTimes = new long[frames];
+        long start = System.nanoTime();
+        for (int f = 0; f < frames; f++) {
+            long frameStart = System.nanoTime();
+            renderFrame(g, f / (double) frames);
+            frameTimes[f] = System.nanoTime() - frameStart;
+        }
+        long total = System.nanoTime() - start;
+
+        Arrays.sort(frameTimes);
+        double averageMs = total * 0.000001 / frames;
+        System.out.println(String.format(
+                "fps: %.1f, ms/frame: avg %.3f, min %.3f, p99 %.3f, max %.3f"
+                    , 1000 / averageMs, averageMs, frameTimes[0] * 0.000001
+                        , frameTimes[(int) (0.99 * (frames - 1))] * 0.000001
+                            , frameTimes[frames - 1] * 0.000001));
+    }
+
+    // boots the stage scene of the floor through the scene manager 
+    // (without audio). Resource must be already initialized.
+    public static Stage enterStage(int floor) {
+        Weapons.createPlayerWeapons();
+        Stage stage = new Stage();
+        SceneManager.addState(stage);
+        Wolf3DGame.newGame(floor, null);
+        while (SceneManager.getCurrentState() != stage
+                                        || SceneManager.isFading()) {
+
+            SceneManager.fixedUpdate();
+        }
+        return stage;
+    }
+
+    // finds the longest free straight line from the player start location
+    private static void createCameraPath() {
+        startX = Player.getPlayerX();
+        startY = Player.getPlayerY();
+        walkDx = 1;
+        walkDy = 0;
+        walkCells = 0;
+        for (int[] direction : WALK_DIRECTIONS) {
+            int cells = 0;
+            while (cells < MAX_WALK_CELLS) {
+                Tile tile = GameMap.getTile(
+                        (int) startX + direction[0] * (cells + 1)
+                            , (int) startY + direction[1] * (cells + 1));
+
+                if (tile == null || tile.getType() != FLOOR
+                                        || tile.isBlockMovement()) {
+                    break;
+                }
+                cells++;
+            }
+            if (cells > walkCells) {
+                walkCells = cells;
+                walkDx = direction[0];
+                walkDy = direction[1];
+            }
+        }
+    }
+
+    // t = 0.0~1.0 position along the camera path
+    private static void renderFrame(Graphics2D g, double t) {
+        double walkAngle = Math.atan2(walkDy, walkDx);
+        double x = startX;
+        double y = startY;
+        double angle;
+        if (t < 0.5) {
+            // walk forward and back looking around
+            double walk = walkCells * (1 - Math.abs(1 - 4 * t));
+            x += walkDx * walk;
+            y += walkDy * walk;
+            double look = Math.sin(2 * Math.PI * 8 * t) * Math.PI / 4;
+            angle = (t < 0.25 ? walkAngle : walkAngle + Math.PI) + look;
+        }
+        else {
+            // turn around
+            angle = walkAngle + 2 * Math.PI * (2 * t - 1);
+        }
+        Player.reset(x, y, angle);
+
+        FrameSnapshot.capture();
+        FrameSnapshot.acquire();
+        SceneManager.draw(g);
+    }
+
+}
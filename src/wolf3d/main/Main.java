@@ -2,6 +2,7 @@ package wolf3d.main;
 
 import javax.swing.SwingUtilities;
 import wolf3d.infra.Display;
+import wolf3d.infra.EngineMetrics;
 import wolf3d.infra.GameCanvas;
 import wolf3d.infra.Wolf3DGame;
 
@@ -19,7 +20,16 @@ public class Main {
             GameCanvas gameCanvas = new GameCanvas(new Wolf3DGame());
             Display display = new Display(gameCanvas);
             display.setTitle("Java Wolfenstein 3D Engine v0.0.1  "
-                            + "[F12 - Full screen][F11 - Keep aspect ratio]");
+                            + "[F12 - Full screen][F11 - Keep aspect ratio]"
+                            + "[F10 - Wall renderer]"
+                            + "[F9 - Parallel raycasting]"
+                            + "[F8 - Resolution]"
+                            + "[F7 - Pixel writes]"
+                            + "[F6 - Pipelined rendering]"
+                            + "[F5 - Frame pacing]"
+                            + "[F4 - Performance overlay]");
+            
+            EngineMetrics.register();
             
             // display.setIconImage(Resource.getImage("icon"));
             display.start();
@@ -0,0 +1,131 @@
+package wolf3d.main;
+
+import wolf3d.infra.GameMap;
+import wolf3d.infra.GameMap.RaycastResult;
+import wolf3d.infra.ParallelRaycaster;
+import wolf3d.infra.Player;
+import wolf3d.infra.ProjectionTables;
+import wolf3d.infra.Resource;
+import wolf3d.infra.VisibleCells;
+import static wolf3d.infra.Settings.*;
+
+/**
+ * RaycastScalingReport class.
+ *
+ * Measures the raycasting pass of the 3D view (one ray per screen column)
+ * serially and with the ParallelRaycaster using 1..N threads, and prints
+ * the time per frame and the speedup for each number of threads.
+ *
+ * The player turns 360 degrees around the player start location
+ * of the selected floor during the measurement.
+ *
+ * Usage: RaycastScalingReport [floor] [frames] [columns]
+ *
+ * @author Leonardo Ono (ono.leo80@gmail.com)
+ */
+public class RaycastScalingReport {
+
+    private static final double FOV = Math.toRadians(72);
+    private static final double MAX_RAY_SIZE = 1000;
+    private static final int WARMUP_FRAMES = 200;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        int floor = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int columns = args.length > 2
+                            ? Integer.parseInt(args[2]) : CANVAS_WIDTH;
+
+        Resource.initialize();
+        GameMap.loadByFloorNumber(floor);
+
+        ProjectionTables projection = new ProjectionTables();
+        projection.update(FOV, columns);
+        RaycastResult[] results = new RaycastResult[columns];
+        for (int c = 0; c < columns; c++) {
+            results[c] = new RaycastResult();
+        }
+        VisibleCells visibleCells = new VisibleCells();
+
+        System.out.println("floor: " + floor + ", frames: " + frames
+                + ", columns: " + columns + ", available processors: "
+                        + Runtime.getRuntime().availableProcessors());
+
+        System.out.println();
+        System.out.println("threads   ms/frame   speedup   efficiency");
+
+        // serial baseline
+        runSerial(projection, results, visibleCells, WARMUP_FRAMES);
+        long start = System.nanoTime();
+        runSerial(projection, results, visibleCells, frames);
+        double serialMs = (System.nanoTime() - start) * 0.000001 / frames;
+        printRow("serial", serialMs, serialMs);
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            ParallelRaycaster raycaster
+                    = new ParallelRaycaster(threads, columns);
+
+            runParallel(raycaster, projection, results
+                                    , visibleCells, WARMUP_FRAMES);
+
+            start = System.nanoTime();
+            runParallel(raycaster, projection, results, visibleCells, frames);
+            double ms = (System.nanoTime() - start) * 0.000001 / frames;
+            printRow(String.valueOf(threads), ms, serialMs);
+            raycaster.shutdown();
+        }
+    }
+
+    private static double getFrameAngle(int frame, int frames) {
+        return Player.getPlayerAngle() + 2 * Math.PI * frame / frames;
+    }
+
+    private static void runSerial(ProjectionTables projection
+            , RaycastResult[] results, VisibleCells visibleCells, int frames) {
+
+        double[] rayDirX = projection.getRayDirX();
+        double[] rayDirY = projection.getRayDirY();
+        double px = Player.getPlayerX();
+        double py = Player.getPlayerY();
+        for (int f = 0; f < frames; f++) {
+            double pa = getFrameAngle(f, frames);
+            double dx = Math.cos(pa);
+            double dy = Math.sin(pa);
+            visibleCells.clear();
+            for (int c = 0; c < rayDirX.length; c++) {
+                double rx = rayDirX[c];
+                double ry = rayDirY[c];
+                GameMap.performRaycastDDA(px, py
+                        , dx * rx - dy * ry, dy * rx + dx * ry
+                        , results[c], MAX_RAY_SIZE, visibleCells, null);
+            }
+        }
+    }
+
+    private static void runParallel(ParallelRaycaster raycaster
+            , ProjectionTables projection, RaycastResult[] results
+                                , VisibleCells visibleCells, int frames) {
+
+        double px = Player.getPlayerX();
+        double py = Player.getPlayerY();
+        for (int f = 0; f < frames; f++) {
+            double pa = getFrameAngle(f, frames);
+            visibleCells.clear();
+            raycaster.castRays(px, py, Math.cos(pa), Math.sin(pa)
+                    , projection.getRayDirX(), projection.getRayDirY()
+                        , results, MAX_RAY_SIZE, visibleCells, null);
+        }
+    }
+
+    private static void printRow(String threads, double ms, double serialMs) {
+        double speedup = serialMs / ms;
+        double efficiency = threads.equals("serial")
+                                ? 1.0 : speedup / Integer.parseInt(threads);
+
+        System.out.println(String.format("%7s %10.4f %9.2fx %11.0f%%"
+                            , threads, ms, speedup, 100 * efficiency));
+    }
+
+}
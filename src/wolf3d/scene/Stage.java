@@ -2,31 +2,37 @@ package wolf3d.scene;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Rectangle;
 import java.awt.Shape;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 import wolf3d.asset.loader.VGAGRAPHLoader.VGAGRAPHFont;
+import wolf3d.asset.loader.VSWAPLoader.SpriteSpans;
 import wolf3d.infra.Audio;
 import wolf3d.infra.Doors;
 import wolf3d.infra.Enemies;
+import wolf3d.infra.EngineMetrics;
+import wolf3d.infra.EngineEvents.RenderPhaseEvent;
 import wolf3d.infra.FizzleFade;
+import wolf3d.infra.FrameBuffer;
+import wolf3d.infra.FrameSnapshot;
 import wolf3d.infra.GameMap;
 import wolf3d.infra.GameMap.RaycastResult;
+import static wolf3d.infra.GameMap.MAP_COLS;
 import static wolf3d.infra.GameMap.performRaycastDDA;
 import wolf3d.infra.HUD;
-import wolf3d.infra.Objs;
 import wolf3d.infra.Objs.EndPlayerObj;
 import wolf3d.infra.Objs.EndPlayerObj.EndPlayerState;
-import wolf3d.infra.Objs.EnemyObj;
-import static wolf3d.infra.Objs.EnemyObj.EnemyState.DEAD;
 import wolf3d.infra.Objs.Obj;
-import static wolf3d.infra.Objs.ObjType.END_PLAYER;
-import static wolf3d.infra.Objs.ObjType.ENEMY;
+import wolf3d.infra.Palette;
+import wolf3d.infra.PaletteEffects;
+import wolf3d.infra.ParallelRaycaster;
+import wolf3d.infra.PerfOverlay;
+import wolf3d.infra.PerfOverlay.Phase;
+import wolf3d.infra.ProjectionTables;
+import wolf3d.infra.SpriteOrder;
+import wolf3d.infra.SpriteScalers;
+import wolf3d.infra.TimerWheel;
 import static wolf3d.infra.Objs.SPRITE_SIZE;
 import wolf3d.infra.Player;
 import static wolf3d.infra.Player.PLAYER_RADIUS;
@@ -37,6 +43,7 @@ import wolf3d.infra.Scene;
 import wolf3d.infra.SecretDoors;
 import static wolf3d.infra.Settings.*;
 import wolf3d.infra.Util;
+import wolf3d.infra.VisibleCells;
 import wolf3d.infra.Weapons;
 import wolf3d.infra.Wolf3DGame;
 
@@ -49,23 +56,54 @@ public class Stage extends Scene {
 
     // https://www.doomworld.com/forum/topic ->
     //                      -> /118059-what-was-the-fov-in-the-original-doom/
-    private final double fov = Math.toRadians(72);
+    public static final double FOV = Math.toRadians(72);
 
-    private final double projPlaneDistance;
-    private final int projectionWidth = CANVAS_WIDTH;
-    private final double[] projectionAngles = new double[projectionWidth];
+    // the projection follows the internal render resolution 
+    // (see updateProjection())
+    private final ProjectionTables projection = new ProjectionTables();
+    private double projPlaneDistance;
+    private int projectionWidth;
     
-    private final double[] wallDepth = new double[CANVAS_WIDTH];    
+    // player pose of the snapshot being rendered, 
+    // view direction computed once per frame
+    private double snapshotPlayerX;
+    private double snapshotPlayerY;
+    private double playerDirX;
+    private double playerDirY;
+    
+    private double[] wallDepth;
 
     private int offsetX = 0;
-    private int offsety = CANVAS_HEIGHT / 2 - 20;
+    private int offsety;
+    
+    // 3D view area (the bottom rows are covered by the HUD)
+    private int viewHeight;
     
     private static final int MAX_RAY_SIZE = 1000;
     
-    private final RaycastResult raycastResult = new RaycastResult();
+    // avoid int overflow when the player is too close to a wall
+    private static final int MAX_WALL_HEIGHT = 1 << 20;
+    
+    // one result for each screen column
+    private RaycastResult[] rayResults;
+    
+    private ParallelRaycaster parallelRaycaster;
+    
+    // softwareWallRenderer of the frame being drawn (read once per frame)
+    private boolean indexedRendering;
+    
+    // number of pixels written by the 3D view pass in the last frame
+    private long pixelWrites;
+    
+    // number of DDA steps of all rays and sprites drawn in the last frame
+    private long ddaSteps;
+    private int spritesDrawn;
+    private int spritesCulled;
     
     private Color floorColor;
     private Color ceilingColor;
+    private byte floorColorIndex;
+    private byte ceilingColorIndex;
     private final VGAGRAPHFont fontYellow;
     private final VGAGRAPHFont fontBlack;
     
@@ -73,19 +111,40 @@ public class Stage extends Scene {
     
     public Stage() {
         super("stage");
+        fontYellow = Resource.getFont("SMALL_YELLOW");
+        fontBlack = Resource.getFont("SMALL_BLACK");
+    }
+    
+    // rebuilds the projection when the internal render resolution 
+    // has changed, so the 3D view is rendered with one ray per 
+    // frame buffer column.
+    private void updateProjection() {
+        int width = FrameBuffer.getWidth();
+        int height = FrameBuffer.getHeight();
+        boolean rebuilt = projection.update(FOV, width);
+        if (!rebuilt && height * (CANVAS_HEIGHT - HUD_HEIGHT) 
+                                    / CANVAS_HEIGHT == viewHeight) {
+            
+            return;
+        }
         
-        projPlaneDistance = (projectionWidth * 0.5) / Math.tan(fov * 0.5);
-        for (int sx = 0; sx < projectionWidth; sx++) {
-            double op = sx - projectionWidth / 2;
-            projectionAngles[sx] = Math.atan(op / projPlaneDistance);
+        projectionWidth = projection.getColumns();
+        projPlaneDistance = projection.getPlaneDistance();
+        wallDepth = new double[projectionWidth];
+        rayResults = new RaycastResult[projectionWidth];
+        for (int r = 0; r < projectionWidth; r++) {
+            rayResults[r] = new RaycastResult();
         }
         
-        // workaround: fix missing vertical wall column at center of screen 
-        //             when this forms exactly 45 degrees angle.
-        projectionAngles[160] += 0.000001;
+        viewHeight = height * (CANVAS_HEIGHT - HUD_HEIGHT) / CANVAS_HEIGHT;
+        offsety = viewHeight / 2;
         
-        fontYellow = Resource.getFont("SMALL_YELLOW");
-        fontBlack = Resource.getFont("SMALL_BLACK");
+        if (parallelRaycaster != null 
+                && parallelRaycaster.getColumns() != projectionWidth) {
+            
+            parallelRaycaster.shutdown();
+            parallelRaycaster = null;
+        }
     }
     
     private void reset() {
@@ -94,6 +153,10 @@ public class Stage extends Scene {
         ceilingColor = Resource.getCeilingColorByFloorNumber(
                                                     Wolf3DGame.getFloor());
         
+        floorColorIndex = (byte) Palette.getNearestColorIndex(floorColor);
+        ceilingColorIndex 
+                = (byte) Palette.getNearestColorIndex(ceilingColor);
+        
         // debug: start player at specific location
         if (Wolf3DGame.playerOverrideLocation != null) {
             Player.reset(Wolf3DGame.playerOverrideLocation.x + 0.5
@@ -122,25 +185,33 @@ public class Stage extends Scene {
     public void onExit() {
     }
 
-    @Override
-    public void update(double delta) {
-        Player.update(delta);
-        updateFlashScreenEffect(delta);
-    }
-    
     @Override
     public void fixedUpdate() {
+        long startTime = PerfOverlay.begin();
         Player.fixedUpdate();
+        PerfOverlay.end(Phase.PLAYER, startTime);
         if (Player.getPlayerState() == PLAYING) {
+            startTime = PerfOverlay.begin();
             Enemies.fixedUpdateEnemies();
+            PerfOverlay.end(Phase.ENEMIES, startTime);
+            startTime = PerfOverlay.begin();
             Doors.fixedUpdateDoors();
+            PerfOverlay.end(Phase.DOORS, startTime);
+            startTime = PerfOverlay.begin();
             SecretDoors.fixedUpdateSecretDoors();
+            PerfOverlay.end(Phase.SECRET_DOORS, startTime);
+            startTime = PerfOverlay.begin();
             Weapons.fixedUpdate();
+            PerfOverlay.end(Phase.WEAPONS, startTime);
             HUD.fixedUpdate();
+            // expired timers take effect in the next fixed update
+            TimerWheel.advance();
         }
+        updateFlashScreenEffect();
         FizzleFade.fixedUpdate();
         endPlayerObj.fixedUpdate();
         activateEndPlayer();
+        EngineMetrics.updateEnemiesPerState();
         
         // game was cleared and all cutscene animations was finished
         if (endPlayerObj.isEnd()) {
@@ -159,56 +230,254 @@ public class Stage extends Scene {
         }
     }
     
+    @Override
+    public void captureSnapshot(FrameSnapshot snapshot) {
+        if (endPlayerObj != null && endPlayerObj.isDrawable()) {
+            snapshot.addSprite(endPlayerObj, endPlayerObj.getEndPlayerX()
+                , endPlayerObj.getEndPlayerY(), endPlayerObj.getSprite());
+        }
+        snapshot.setFlashScreen(flashScreenRed, flashScreenGreen
+                                    , flashScreenBlue, flashScreenAlpha);
+    }
+
+    @Override
+    public boolean isDrawnFromSnapshot() {
+        return true;
+    }
+    
     @Override
     public void draw(Graphics2D g) {
-        drawFloorAndCeiling(g);
-        drawWalls(g);
-        drawObjs(g);
-        if (Player.getPlayerState() == PLAYING) {
-            Weapons.draw(g);
+        FrameSnapshot snapshot = FrameSnapshot.getRendering();
+        // nothing of the 3D view would be seen under the fizzle
+        if (FizzleFade.isCovering(snapshot)) {
+            indexedRendering = softwareWallRenderer;
+            updateProjection();
+            pixelWrites = 0;
+        }
+        else {
+            render3DView(snapshot);
+        }
+        FizzleFade.draw(indexedRendering);
+        long hudStartTime = PerfOverlay.begin();
+        HUD.draw(g, indexedRendering);
+        PerfOverlay.end(Phase.HUD, hudStartTime);
+        drawRequiredKeyUserMsg(g, snapshot);
+        if (indexedRendering) {
+            // everything above is faded by the palette remap table
+            drawPixelWrites(g);
+            presentIndexedPixels(snapshot
+                        , FrameBuffer.getWidth(), FrameBuffer.getHeight());
+        }
+        else {
+            drawFlashScreenEffect(g, snapshot);
+            drawPixelWrites(g);
+        }
+    }
+    
+    // the palette remap table already applied the fade of this frame
+    @Override
+    public boolean isFadeDrawn() {
+        return indexedRendering;
+    }
+    
+    // walls, floor, ceiling, sprites and the player weapon 
+    // (also used by the benchmarks)
+    public void draw3DView(FrameSnapshot snapshot) {
+        render3DView(snapshot);
+        if (indexedRendering) {
+            presentIndexedPixels(snapshot
+                , Math.min(projectionWidth, FrameBuffer.getWidth())
+                                                            , viewHeight);
+        }
+    }
+    
+    // converts the indexed pixels of the rows 0~height - 1 to RGB
+    // with the palette effects (fade, flash) of the snapshot
+    private void presentIndexedPixels(
+                    FrameSnapshot snapshot, int areaWidth, int height) {
+        
+        long startTime = PerfOverlay.begin();
+        int[] paletteTable = PaletteEffects.getTable(snapshot);
+        FrameBuffer.presentIndexedPixels(areaWidth, 0, height, paletteTable);
+        PerfOverlay.end(Phase.PALETTE, startTime);
+    }
+    
+    // in indexed rendering mode, only into the indexed pixels
+    private void render3DView(FrameSnapshot snapshot) {
+        indexedRendering = softwareWallRenderer;
+        updateProjection();
+        snapshotPlayerX = snapshot.getPlayerX();
+        snapshotPlayerY = snapshot.getPlayerY();
+        playerDirX = Math.cos(snapshot.getPlayerAngle());
+        playerDirY = Math.sin(snapshot.getPlayerAngle());
+        
+        // the 3D view is rendered in frame buffer pixel coordinates
+        Graphics2D ng = FrameBuffer.getNativeGraphics();
+        pixelWrites = 0;
+        Shape oc = ng.getClip();
+        ng.setClip(0, 0, projectionWidth, viewHeight);
+        long startTime = PerfOverlay.begin();
+        RenderPhaseEvent event = beginRenderPhaseEvent();
+        drawFloorAndCeiling(ng);
+        PerfOverlay.end(Phase.FLOOR_AND_CEILING, startTime);
+        commitRenderPhaseEvent(event, Phase.FLOOR_AND_CEILING, snapshot);
+        startTime = PerfOverlay.begin();
+        event = beginRenderPhaseEvent();
+        drawWalls(ng, snapshot);
+        PerfOverlay.end(Phase.WALLS, startTime);
+        commitRenderPhaseEvent(event, Phase.WALLS, snapshot);
+        startTime = PerfOverlay.begin();
+        event = beginRenderPhaseEvent();
+        drawObjs(ng, snapshot);
+        PerfOverlay.end(Phase.OBJS, startTime);
+        commitRenderPhaseEvent(event, Phase.OBJS, snapshot);
+        ng.setClip(oc);
+        if (snapshot.getPlayerState() == PLAYING) {
+            Weapons.draw(FrameBuffer.getGraphics(), indexedRendering);
+        }
+        EngineMetrics.view3DRendered(projectionWidth, ddaSteps
+                    , spriteOrder.size(), spritesDrawn, spritesCulled);
+    }
+    
+    // --- JFR render phase events ---
+    
+    private RenderPhaseEvent beginRenderPhaseEvent() {
+        RenderPhaseEvent event = new RenderPhaseEvent();
+        event.pixelWrites = pixelWrites;
+        event.begin();
+        return event;
+    }
+    
+    private void commitRenderPhaseEvent(RenderPhaseEvent event
+                                , Phase phase, FrameSnapshot snapshot) {
+        
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.phase = phase.name();
+        event.floor = snapshot.getFloor();
+        event.pixelWrites = pixelWrites - event.pixelWrites;
+        if (phase == Phase.WALLS) {
+            event.raysCast = projectionWidth;
+            event.ddaSteps = ddaSteps;
+        }
+        else if (phase == Phase.OBJS) {
+            event.spritesDrawn = spritesDrawn;
+            event.spritesCulled = spritesCulled;
+        }
+        event.commit();
+    }
+    
+    public long getPixelWrites() {
+        return pixelWrites;
+    }
+    
+    private void drawPixelWrites(Graphics2D g) {
+        if (showPixelWrites) {
+            long viewPixels = (long) projectionWidth * viewHeight;
+            String info = "3D VIEW PIXEL WRITES: " + pixelWrites 
+                + String.format(" (%.2f PER PIXEL)"
+                            , pixelWrites / (double) viewPixels);
+            
+            drawString(g, fontBlack, info, 3, 3);
+            drawString(g, fontYellow, info, 2, 2);
         }
-        FizzleFade.draw(g);
-        HUD.draw(g);
-        drawRequiredKeyUserMsg(g);
-        drawFlashScreenEffect(g);
     }
 
-    private void drawRequiredKeyUserMsg(Graphics2D g) {
-        if (Player.isShowUserMsgGoldKeyRequired()) {
+    private void drawRequiredKeyUserMsg(
+                            Graphics2D g, FrameSnapshot snapshot) {
+        
+        if (snapshot.isShowUserMsgGoldKeyRequired()) {
             String userMsg = "GOLD KEY IS REQUIRED TO OPEN THIS DOOR";
-            fontBlack.drawString(g, userMsg, 37, 75);
-            fontYellow.drawString(g, userMsg, 36, 74);
+            drawString(g, fontBlack, userMsg, 37, 75);
+            drawString(g, fontYellow, userMsg, 36, 74);
         }
-        else if (Player.isShowUserMsgSilverKeyRequired()) {
+        else if (snapshot.isShowUserMsgSilverKeyRequired()) {
             String userMsg = "SILVER KEY IS REQUIRED TO OPEN THIS DOOR";
-            fontBlack.drawString(g, userMsg, 43, 75);
-            fontYellow.drawString(g, userMsg, 42, 74);
+            drawString(g, fontBlack, userMsg, 43, 75);
+            drawString(g, fontYellow, userMsg, 42, 74);
+        }
+    }
+    
+    // in indexed rendering mode, into the indexed pixels
+    private void drawString(Graphics2D g
+                    , VGAGRAPHFont font, String text, int x, int y) {
+        
+        if (indexedRendering) {
+            font.drawStringIndexed(text, x, y);
+        }
+        else {
+            font.drawString(g, text, x, y);
         }
     }
     
+    // the software wall renderer fills the ceiling and floor spans 
+    // of each column itself, so nothing is overdrawn.
     private void drawFloorAndCeiling(Graphics2D g) {
+        if (indexedRendering) {
+            return;
+        }
         g.setColor(ceilingColor);
-        g.fillRect(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT);
+        g.fillRect(0, 0, projectionWidth, offsety);
         g.setColor(floorColor);
-        g.fillRect(0, CANVAS_HEIGHT / 2 - 20, CANVAS_WIDTH, CANVAS_HEIGHT / 2);
+        g.fillRect(0, offsety, projectionWidth, viewHeight - offsety);
+        pixelWrites += (long) projectionWidth * viewHeight;
     }        
     
-    private void drawWalls(Graphics2D g) {
-        GameMap.getObjsDuringRaycast().clear();
+    private void castRays(FrameSnapshot snapshot) {
+        VisibleCells visibleCells = GameMap.getCellsDuringRaycast();
+        visibleCells.clear();
+        double px = snapshotPlayerX;
+        double py = snapshotPlayerY;
+        double[] openRates = snapshot.getOpenRates();
+        double[] rayDirX = projection.getRayDirX();
+        double[] rayDirY = projection.getRayDirY();
+        if (parallelRaycasting) {
+            if (parallelRaycaster == null) {
+                parallelRaycaster = new ParallelRaycaster(
+                                        RAYCASTING_THREADS, projectionWidth);
+            }
+            parallelRaycaster.castRays(px, py, playerDirX, playerDirY
+                , rayDirX, rayDirY, rayResults, MAX_RAY_SIZE
+                                                , visibleCells, openRates);
+        }
+        else {
+            double dx = playerDirX;
+            double dy = playerDirY;
+            for (int r = 0; r < projectionWidth; r++) {
+                double rx = rayDirX[r];
+                double ry = rayDirY[r];
+                performRaycastDDA(px, py, dx * rx - dy * ry, dy * rx + dx * ry
+                    , rayResults[r], MAX_RAY_SIZE, visibleCells, openRates);
+            }
+        }
+    }
+    
+    private void drawWalls(Graphics2D g, FrameSnapshot snapshot) {
+        castRays(snapshot);
+        lastWallTexture = null;
+        double[] heightPerDistance = projection.getHeightPerDistance();
+        double[] cosCorrection = projection.getCosCorrection();
         
-        // perform raycast and draw the columns of the walls
-        for (int r = 0; r < projectionAngles.length; r++) {
-            double px = Player.getPlayerX();
-            double py = Player.getPlayerY();
-            double pa = Player.getPlayerAngle() + projectionAngles[r];
-            performRaycastDDA(px, py, pa, raycastResult, MAX_RAY_SIZE);
+        // draw the columns of the walls
+        ddaSteps = 0;
+        for (int r = 0; r < projectionWidth; r++) {
+            RaycastResult raycastResult = rayResults[r];
+            ddaSteps += raycastResult.getSteps();
             
-            if (raycastResult.isIntersecting()) {
-                wallDepth[r] = raycastResult.getDistance();
+            if (!raycastResult.isIntersecting()) {
+                wallDepth[r] = MAX_RAY_SIZE;
+                if (indexedRendering) {
+                    drawWallColumn(offsetX + r, 0, null, 0);
+                }
+            }
+            else {
+                // perpendicular distance, compared with the sprites
+                wallDepth[r] = raycastResult.getDistance() 
+                                                    * cosCorrection[r];
                 
-                int wallHeight = (int) (projPlaneDistance * 0.5 
-                                        / (raycastResult.getDistance() 
-                                            * Math.cos(projectionAngles[r])));
+                int wallHeight = (int) (heightPerDistance[r] 
+                                            / raycastResult.getDistance());
                 
                 double textureUnit = 0.0;
                 double ripx = raycastResult.getIntersectionPoint().x;
@@ -233,156 +502,290 @@ public class Stage extends Scene {
                 BufferedImage texture = raycastResult.getTile()
                                     .getTexture(raycastResult.getWallSide());
                 
-                g.drawImage(
-                        texture, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+                if (indexedRendering) {
+                    drawWallColumn(dx1, wallHeight, texture, textureRow);
+                }
+                else {
+                    g.drawImage(texture
+                            , dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+                    
+                    pixelWrites += Math.min(dy2, viewHeight) 
+                                                - Math.max(dy1, 0);
+                }
             }
         }
     }
     
-    private final Rectangle sight = new Rectangle(
-                    offsetX + CANVAS_WIDTH / 2 - 16, 0, 32, CANVAS_HEIGHT);
-    
-    private final Rectangle targetEnemyRegionTmp = new Rectangle();
-    private final Rectangle targetEnemy = new Rectangle();
-    private List<Objs.Obj> orderedObjs = new ArrayList<>();
+    private BufferedImage lastWallTexture;
+    private byte[] lastWallTexels;
     
-    private void drawObjs(Graphics2D g) {
-        Set<Objs.Obj> objs = GameMap.getObjsDuringRaycast();
+    // software wall renderer: writes the ceiling span, the texels of the 
+    // texture column and the floor span directly into the indexed pixels 
+    // (16.16 fixed point texture stepping), clipped to the 3D view area, 
+    // so each pixel of the column is written exactly once.
+    // texture = null draws only the ceiling and the floor.
+    private void drawWallColumn(
+            int x, int wallHeight, BufferedImage texture, int textureCol) {
         
-        objs.add(endPlayerObj);
+        if (x < 0 || x >= FrameBuffer.getWidth()) {
+            return;
+        }
         
-        orderedObjs.clear();
+        // neighbour columns usually share the same texture
+        if (texture != lastWallTexture) {
+            lastWallTexture = texture;
+            lastWallTexels = texture == null 
+                        ? null : Resource.getWallTextureTexels(texture);
+        }
+        byte[] texels = lastWallTexels;
         
-        double dirHorX = Math.cos(Player.getPlayerAngle());
-        double dirHorY = Math.sin(Player.getPlayerAngle());
-        double dirVerX = -dirHorY; 
-        double dirVerY = dirHorX;
+        if (texels == null || wallHeight < 0) wallHeight = 0;
+        if (wallHeight > MAX_WALL_HEIGHT) wallHeight = MAX_WALL_HEIGHT;
+        int top = offsety - wallHeight;
+        int height = 2 * wallHeight;
         
-        Wolf3DGame.setClosestEnemyInSight(null);
-        targetEnemy.setBounds(0, 0, 0, 0);
+        int texStep = height > 0 ? (SPRITE_SIZE << 16) / height : 0;
+        int texPos = 0;
+        int y1 = top;
+        int y2 = top + height;
+        if (y1 < 0) {
+            texPos = -y1 * texStep;
+            y1 = 0;
+        }
+        if (y2 > viewHeight) y2 = viewHeight;
         
-        objs.addAll(Enemies.getEnemies());
+        byte[] pixels = FrameBuffer.getIndexedPixels();
+        int width = FrameBuffer.getWidth();
+        int p = x;
         
-        for (Objs.Obj obj : objs) {
-            if (!obj.isDrawable()) continue;
-                
-            double objX = obj.getCol() + 0.5;
-            double objY = obj.getRow() + 0.5;
-
-            if (obj.getType() == ENEMY) {
-                EnemyObj enemy = (EnemyObj) obj;
-                objX = enemy.getEnemyX();
-                objY = enemy.getEnemyY();
-            }
-            else if (obj.getType() == END_PLAYER) {
-                EndPlayerObj epObj = (EndPlayerObj) obj;
-                objX = epObj.getEndPlayerX();
-                objY = epObj.getEndPlayerY();
-            }
-
-            double distX = objX - Player.getPlayerX();
-            double distY = objY - Player.getPlayerY();
-
-            double distHor = dirHorX * distX + dirHorY * distY;
-            double distVer = dirVerX * distX + dirVerY * distY;
-
-            if (distHor > PLAYER_RADIUS) {
-                int sizeHor = (int) (projPlaneDistance * 1 / distHor);
-                int sizeVer = (int) (projPlaneDistance * distVer / distHor);
-
-                obj.setSizeHor(sizeHor);
-                obj.setSizeVer(sizeVer);
-                obj.setDistanceFromPlayer(distHor);
-                orderedObjs.add(obj);
+        // ceiling span
+        for (int y = 0; y < y1; y++) {
+            pixels[p] = ceilingColorIndex;
+            p += width;
+        }
+        
+        // wall span
+        if (texels != null) {
+            textureCol = Math.max(0, Math.min(SPRITE_SIZE - 1, textureCol));
+            int texOffset = textureCol * SPRITE_SIZE;
+            for (int y = y1; y < y2; y++) {
+                pixels[p] = texels[texOffset + (texPos >>> 16)];
+                texPos += texStep;
+                p += width;
             }
         }
         
-        Collections.sort(orderedObjs, objComparator);
-        for (Objs.Obj obj2 : orderedObjs) {
-            int sizeHor = obj2.getSizeHor();
-            int sizeVer = obj2.getSizeVer();
-            if (sizeHor <= 0) return;
-
-            // calculate the clipping region of sprite
-            boolean clip = true;
-            int startClip = -1;
-            int endClip = 0;
-            //double tol = 0.1; // tolerance to avoid visibility problems
-            for (int x = 0; x < sizeHor; x++) {
-                int scrX = 160 - sizeHor / 2 + sizeVer + x;
+        // floor span
+        for (int y = y2; y < viewHeight; y++) {
+            pixels[p] = floorColorIndex;
+            p += width;
+        }
+        
+        pixelWrites += viewHeight;
+    }
+    
+    // sprite to be drawn in this frame
+    private static class SpriteEntry {
+        
+        private Obj obj;
+        private BufferedImage image;
+        private double distance;
+        private int sizeHor;
+        private int sizeVer;
+        
+    }
+    
+    private final List<SpriteEntry> spriteEntriesPool = new ArrayList<>();
+    private final SpriteOrder<SpriteEntry> spriteOrder = new SpriteOrder<>();
+    
+    private void addSpriteEntry(double dirHorX, double dirHorY, Obj obj
+                            , double objX, double objY, BufferedImage image) {
+        
+        double distX = objX - snapshotPlayerX;
+        double distY = objY - snapshotPlayerY;
 
-                boolean draw = scrX >= 0 && scrX < CANVAS_WIDTH 
-                        && wallDepth[scrX] > obj2.getDistanceFromPlayer() 
-                                        / Math.cos(projectionAngles[scrX]); // + tol;
+        double distHor = dirHorX * distX + dirHorY * distY;
+        double distVer = -dirHorY * distX + dirHorX * distY;
 
-                if (clip && draw) {
-                    startClip = scrX;
-                    clip = false;
-                }
-                else if (!clip && (!draw || x == sizeHor - 1)) {
-                    endClip = scrX;
-                    break;
-                }
+        if (distHor > PLAYER_RADIUS) {
+            int index = spriteOrder.size();
+            if (index == spriteEntriesPool.size()) {
+                spriteEntriesPool.add(new SpriteEntry());
             }
-
-            // sprite completely occluded
-            if (startClip < 0) {
+            SpriteEntry entry = spriteEntriesPool.get(index);
+            entry.obj = obj;
+            entry.image = image;
+            entry.distance = distHor;
+            entry.sizeHor = (int) (projPlaneDistance * 1 / distHor);
+            entry.sizeVer = (int) (projPlaneDistance * distVer / distHor);
+            spriteOrder.add(obj, entry, obj.isDrawFirst(), distHor);
+        }
+    }
+    
+    private void drawObjs(Graphics2D g, FrameSnapshot snapshot) {
+        spriteOrder.clear();
+        spritesDrawn = 0;
+        spritesCulled = 0;
+        
+        double dirHorX = playerDirX;
+        double dirHorY = playerDirY;
+        
+        // static objs of the cells visited during the raycasting
+        VisibleCells visibleCells = GameMap.getCellsDuringRaycast();
+        for (int i = 0; i < visibleCells.size(); i++) {
+            int cell = visibleCells.getCell(i);
+            Obj obj = GameMap.getObj(cell % MAP_COLS, cell / MAP_COLS);
+            if (obj == null || !obj.isDrawable()) continue;
+            addSpriteEntry(dirHorX, dirHorY, obj, obj.getCol() + 0.5
+                                , obj.getRow() + 0.5, obj.getSprite());
+        }
+        
+        // enemies and end player (culled if not around the visible cells)
+        for (int i = 0; i < snapshot.getSpritesCount(); i++) {
+            if (!visibleCells.isVisibleAround((int) snapshot.getSpriteX(i)
+                                        , (int) snapshot.getSpriteY(i))) {
+                
+                spritesCulled++;
                 continue;
             }
+            addSpriteEntry(dirHorX, dirHorY, snapshot.getSpriteObj(i)
+                , snapshot.getSpriteX(i), snapshot.getSpriteY(i)
+                                        , snapshot.getSpriteImage(i));
+        }
+        
+        spriteOrder.sort();
+        for (int s = 0; s < spriteOrder.size(); s++) {
+            SpriteEntry sprite = spriteOrder.get(s);
+            int sizeHor = sprite.sizeHor;
+            int sizeVer = sprite.sizeVer;
+            if (sizeHor <= 0) break;
 
-            // draw sprite
-            int dx1 = offsetX + 160 - sizeHor / 2 + sizeVer;
+            int dx1 = offsetX + projectionWidth / 2 - sizeHor / 2 + sizeVer;
             int dy1 = offsety - sizeHor / 2;
             int dx2 = dx1 + sizeHor;
             int dy2 = dy1 + sizeHor;
-            int sx1 = 0;
-            int sy1 = 0;
-            int sx2 = 64;
-            int sy2 = 64;
-            Shape oc = g.getClip();
-            g.setClip(
-                    startClip, 0, endClip - startClip, CANVAS_HEIGHT - 40);
-
-            g.drawImage(obj2.getSprite()
-                    , dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
-
-            g.setClip(oc);
-
-            // reuse this drawing routine 
-            // to choose the closest enemy in sight
-            int terX = offsetX + 160 - sizeHor / 4 + sizeVer;
-            int terY = dy1;
-            int terW = sizeHor / 2;
-            int terH = dy2 - dy1;
-            targetEnemyRegionTmp.setBounds(terX, terY, terW, terH);
-            EnemyObj closestEnemy = Wolf3DGame.getClosestEnemyInSight();
-            if (obj2.getType() == ENEMY) { 
-                Objs.EnemyObj enemyObj = (Objs.EnemyObj) obj2;
-                if (enemyObj.getEnemyState() != DEAD && 
-                    ((closestEnemy == null 
-                        || enemyObj.getDistanceFromPlayer() 
-                        < closestEnemy.getDistanceFromPlayer()) 
-                            && sight.intersects(dx1, 0, dx2 - dx1, 200) 
-                                && targetEnemyRegionTmp.intersects(
-                                                dx1, 0, dx2 - dx1, 200))) {
+            boolean visible = indexedRendering
+                ? drawSpriteSpans(Resource.getSpriteSpans(sprite.image)
+                                        , dx1, dy1, sizeHor, sprite.distance)
+                    : drawSpriteImage(g, sprite, dx1, dy1, sizeHor);
+            
+            // sprite completely occluded
+            if (!visible) {
+                continue;
+            }
+            
+            spritesDrawn++;
+        }
+    }
+    
+    // Graphics2D sprite renderer: draws the scaled sprite image clipped 
+    // to the first contiguous range of columns in front of the walls.
+    // dx1, dy1 = top left corner of the size x size scaled sprite.
+    // returns false if the sprite is completely occluded.
+    private boolean drawSpriteImage(Graphics2D g
+                    , SpriteEntry sprite, int dx1, int dy1, int size) {
+        
+        // calculate the clipping region of sprite
+        boolean clip = true;
+        int startClip = -1;
+        int endClip = 0;
+        //double tol = 0.1; // tolerance to avoid visibility problems
+        for (int x = 0; x < size; x++) {
+            int scrX = dx1 - offsetX + x;
+            boolean draw = scrX >= 0 && scrX < projectionWidth 
+                        && wallDepth[scrX] > sprite.distance; // + tol;
 
-                    Wolf3DGame.setClosestEnemyInSight(enemyObj);
-                    targetEnemy.setBounds(targetEnemyRegionTmp);
+            if (clip && draw) {
+                startClip = scrX;
+                clip = false;
+            }
+            else if (!clip && (!draw || x == size - 1)) {
+                endClip = scrX;
+                break;
+            }
+        }
+        
+        if (startClip < 0) {
+            return false;
+        }
+        
+        int dx2 = dx1 + size;
+        int dy2 = dy1 + size;
+        // back to frame buffer x
+        startClip += offsetX;
+        endClip += offsetX;
+        Shape oc = g.getClip();
+        g.setClip(startClip, 0, endClip - startClip, viewHeight);
+        g.drawImage(sprite.image, dx1, dy1, dx2, dy2, 0, 0, 64, 64, null);
+        g.setClip(oc);
+        
+        // covered area (transparent texels included)
+        int coveredWidth = Math.min(dx2, endClip) - Math.max(dx1, startClip);
+        int coveredHeight = Math.min(dy2, viewHeight) - Math.max(dy1, 0);
+        if (coveredWidth > 0 && coveredHeight > 0) {
+            pixelWrites += (long) coveredWidth * coveredHeight;
+        }
+        return true;
+    }
+    
+    // software sprite renderer (compiled scaler): for each sprite column 
+    // in front of the walls (exact per column occlusion), writes only the 
+    // opaque spans directly into the indexed pixels, each texel as a run 
+    // of pixels given by the scaler table of the sprite size, clipped to 
+    // the 3D view area. Transparent texels and occluded columns cost 
+    // nothing. dx1, dy1 = top left corner of the size x size scaled sprite.
+    // returns false if the sprite is completely occluded.
+    private boolean drawSpriteSpans(SpriteSpans spriteSpans
+                    , int dx1, int dy1, int size, double distance) {
+        
+        if (spriteSpans == null) {
+            return false;
+        }
+        int[] scaler = SpriteScalers.getScaler(size);
+        int[] columnSpans = spriteSpans.getColumnSpans();
+        int[] spans = spriteSpans.getSpans();
+        byte[] spritePixels = spriteSpans.getPixels();
+        byte[] pixels = FrameBuffer.getIndexedPixels();
+        int width = FrameBuffer.getWidth();
+        int columns = Math.min(projectionWidth, width - offsetX);
+        int firstCol = spriteSpans.getFirstCol();
+        boolean visible = false;
+        for (int col = firstCol; col <= spriteSpans.getLastCol(); col++) {
+            // frame buffer x, the ray column is x - offsetX
+            int x1 = Math.max(dx1 + scaler[col], offsetX);
+            int x2 = Math.min(dx1 + scaler[col + 1], offsetX + columns);
+            int spansStart = columnSpans[col - firstCol];
+            int spansEnd = columnSpans[col - firstCol + 1];
+            for (int x = x1; x < x2; x++) {
+                if (wallDepth[x - offsetX] <= distance) {
+                    continue;
+                }
+                visible = true;
+                for (int s = spansStart; s < spansEnd; s += 3) {
+                    int startRow = spans[s];
+                    int endRow = spans[s + 1];
+                    int offset = spans[s + 2] - startRow;
+                    for (int row = startRow; row < endRow; row++) {
+                        int y1 = dy1 + scaler[row];
+                        int y2 = dy1 + scaler[row + 1];
+                        if (y1 >= viewHeight) break;
+                        if (y2 <= 0) continue;
+                        if (y1 < 0) y1 = 0;
+                        if (y2 > viewHeight) y2 = viewHeight;
+                        byte texel = spritePixels[offset + row];
+                        int p = y1 * width + x;
+                        for (int y = y1; y < y2; y++) {
+                            pixels[p] = texel;
+                            p += width;
+                        }
+                        pixelWrites += y2 - y1;
+                    }
                 }
             }
         }
+        return visible;
     }
     
-    private final Comparator<Obj> objComparator = (Obj o1, Obj o2) -> { 
-        // for sprites that have shadow, give priority to draw first
-        // so that enemies are always drawn on top of it.
-        double obj1Dist = o1.getDistanceFromPlayer();
-        if (o1.isDrawFirst()) obj1Dist += 1000;
-        double obj2Dist = o2.getDistanceFromPlayer();
-        if (o2.isDrawFirst()) obj2Dist += 1000;
-        return (int) Math.signum(obj2Dist - obj1Dist);
-    };
-
     // --- flash screen effect ---
 
     private static double flashScreenRed;
@@ -398,18 +801,20 @@ public class Stage extends Scene {
         flashScreenAlpha = alpha;
     }
 
-    private static void updateFlashScreenEffect(double delta) {
-        flashScreenAlpha -= 1.25 * delta;
+    private static void updateFlashScreenEffect() {
+        flashScreenAlpha -= 1.25 * TIME_PER_UPDATE * 0.000000001;
         if (flashScreenAlpha < 0.0) flashScreenAlpha = 0.0;
     }
     
     // draw the flash effect (hit and collect indicators)
-    public static void drawFlashScreenEffect(Graphics2D g) {
-        if (flashScreenAlpha > 0.0) {
-            int red = (int) (255 * flashScreenRed);
-            int green = (int) (255 * flashScreenGreen);
-            int blue = (int) (255 * flashScreenBlue);
-            int alpha = (int) (255 * flashScreenAlpha);
+    public static void drawFlashScreenEffect(
+                                Graphics2D g, FrameSnapshot snapshot) {
+        
+        if (snapshot.getFlashScreenAlpha() > 0.0) {
+            int red = (int) (255 * snapshot.getFlashScreenRed());
+            int green = (int) (255 * snapshot.getFlashScreenGreen());
+            int blue = (int) (255 * snapshot.getFlashScreenBlue());
+            int alpha = (int) (255 * snapshot.getFlashScreenAlpha());
             Color color = Util.getColor(red, green, blue, alpha);
             g.setColor(color);
             g.fillRect(0, 0, CANVAS_WIDTH, CANVAS_HEIGHT);